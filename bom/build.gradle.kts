@@ -43,6 +43,8 @@ dependencies {
 
         api("io.vavr:vavr:0.10.2") // Aug 2, 2019
 
+        api("org.hdrhistogram:HdrHistogram:2.1.11")
+
     }
 }
 
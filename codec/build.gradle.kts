@@ -0,0 +1,35 @@
+plugins {
+    `java-library`
+}
+
+group = "com.thoughtpropulsion"
+version = "0.0.1-SNAPSHOT"
+java.sourceCompatibility = JavaVersion.VERSION_1_8
+
+dependencies {
+    implementation(enforcedPlatform(project(":bom")))
+
+    api(project(":model"))
+
+    api("org.springframework:spring-core")
+    api("org.springframework:spring-messaging")
+    implementation("org.springframework:spring-web")
+    api("com.fasterxml.jackson.core:jackson-databind")
+    implementation("io.projectreactor:reactor-core")
+    api("io.rsocket:rsocket-transport-netty")
+
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("org.junit.jupiter:junit-jupiter-params")
+    testImplementation("org.assertj:assertj-core")
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+    testLogging {
+        events("passed", "skipped", "failed")
+    }
+}
+
+tasks.withType<Wrapper> {
+    gradleVersion = "5.6"
+}
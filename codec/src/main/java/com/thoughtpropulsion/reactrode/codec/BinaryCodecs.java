@@ -0,0 +1,62 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.util.MimeType;
+
+/**
+ * A compact binary encoding for the payloads we send most: {@link Cell}s, {@link Coordinates},
+ * {@link Empty}s, {@link Frame}s and {@link DeltaFrame}s.
+ *
+ * A cell is a flag byte (alive, newborn) followed by its x, y and generation as varints: usually
+ * five or six bytes, where JSON takes about seventy. A frame is its size and generation as
+ * varints followed by the packed cells, one bit each. A delta frame is a flag byte (keyframe,
+ * compression) and varints, followed by its (already compressed) bits.
+ *
+ * Java clients ask for this encoding by setting the connection's data mime type to
+ * {@link #MIME_TYPE}. Browsers keep using JSON. Any other payload type sent over a binary
+ * connection falls back to JSON (under the binary mime type), so every route still works.
+ */
+public class BinaryCodecs {
+  private BinaryCodecs() {}
+
+  public static final MimeType MIME_TYPE = new MimeType("application", "x.reactrode.binary");
+
+  // the most bytes a frame's header (its size and generation) takes
+  public static final int FRAME_HEADER_MAX_BYTES = 3 * Varint.MAX_BYTES;
+
+  static boolean supports(final Class<?> type) {
+    return type == Cell.class || type == Coordinates.class || type == Empty.class
+        || type == Frame.class || type == DeltaFrame.class;
+  }
+
+  /**
+   * Write the header of {@param frame}'s encoding to {@param buffer}. The rest of the encoding is
+   * the packed cells exactly as {@link Frame#asReadOnlyByteBuffer()} has them, so an encoder can
+   * send those without copying them.
+   */
+  public static void writeFrameHeader(final DataBuffer buffer, final Frame frame) {
+    Varint.write(buffer, frame.coordinateSystem.columns);
+    Varint.write(buffer, frame.coordinateSystem.rows);
+    Varint.write(buffer, frame.getGeneration());
+  }
+
+  /**
+   * Add the binary encoder and decoder to {@param strategies}, along with JSON (via
+   * {@param objectMapper}) for everything else sent as {@link #MIME_TYPE}.
+   */
+  public static void register(final RSocketStrategies.Builder strategies,
+                              final ObjectMapper objectMapper) {
+    // order matters: the first encoder (decoder) that can handle a type wins
+    strategies.encoder(new BinaryEncoder(), new Jackson2JsonEncoder(objectMapper, MIME_TYPE));
+    strategies.decoder(new BinaryDecoder(), new Jackson2JsonDecoder(objectMapper, MIME_TYPE));
+  }
+}
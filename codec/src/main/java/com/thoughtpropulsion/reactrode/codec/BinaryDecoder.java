@@ -0,0 +1,105 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import java.util.Map;
+
+import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decodes what {@link BinaryEncoder} encodes. Each buffer (RSocket payload) is one value.
+ */
+public class BinaryDecoder extends AbstractDecoder<Object> {
+
+  public BinaryDecoder() {
+    super(BinaryCodecs.MIME_TYPE);
+  }
+
+  @Override
+  public boolean canDecode(final ResolvableType elementType, final MimeType mimeType) {
+    return BinaryCodecs.supports(elementType.toClass()) && super.canDecode(elementType, mimeType);
+  }
+
+  @Override
+  public Flux<Object> decode(final Publisher<DataBuffer> inputStream,
+                             final ResolvableType elementType, final MimeType mimeType,
+                             final Map<String, Object> hints) {
+    return Flux.from(inputStream)
+        .map(buffer -> decode(buffer, elementType, mimeType, hints));
+  }
+
+  @Override
+  public Mono<Object> decodeToMono(final Publisher<DataBuffer> inputStream,
+                                   final ResolvableType elementType, final MimeType mimeType,
+                                   final Map<String, Object> hints) {
+    return DataBufferUtils.join(inputStream)
+        .map(buffer -> decode(buffer, elementType, mimeType, hints));
+  }
+
+  @Override
+  public Object decode(final DataBuffer buffer, final ResolvableType targetType,
+                       final MimeType mimeType, final Map<String, Object> hints)
+      throws DecodingException {
+    try {
+      final Class<?> type = targetType.toClass();
+      if (type == Cell.class) {
+        final byte flags = buffer.read();
+        final Coordinates coordinates = readCoordinates(buffer);
+        return new Cell(coordinates, (flags & BinaryEncoder.ALIVE) != 0,
+            (flags & BinaryEncoder.NEWBORN) != 0);
+      } else if (type == Coordinates.class) {
+        return readCoordinates(buffer);
+      } else if (type == Empty.class) {
+        return Empty.create();
+      } else if (type == Frame.class) {
+        final int columns = Varint.read(buffer);
+        final int rows = Varint.read(buffer);
+        final int generation = Varint.read(buffer);
+        final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+        // the payload buffer is released when we're done so copy the cells out of it
+        return Frame.wrap(coordinateSystem, generation, buffer.asByteBuffer()).copy();
+      } else if (type == DeltaFrame.class) {
+        final byte flags = buffer.read();
+        final boolean keyframe = (flags & BinaryEncoder.KEYFRAME) != 0;
+        final Compression compression = Compression.values()[flags >> 1];
+        final int generation = Varint.read(buffer);
+        final int baseGeneration = keyframe ? generation : Varint.read(buffer);
+        final int columns = Varint.read(buffer);
+        final int rows = Varint.read(buffer);
+        final byte[] bits = new byte[buffer.readableByteCount()];
+        buffer.read(bits);
+        return DeltaFrame.create(
+            generation, keyframe, baseGeneration, columns, rows, compression, bits);
+      } else {
+        throw new DecodingException(String.format("Can't decode %s from binary", targetType));
+      }
+    } catch (final DecodingException e) {
+      throw e;
+    } catch (final RuntimeException e) {
+      // e.g. the buffer ended early
+      throw new DecodingException(String.format("Malformed %s", targetType), e);
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  private static Coordinates readCoordinates(final DataBuffer buffer) {
+    final int x = Varint.read(buffer);
+    final int y = Varint.read(buffer);
+    final int generation = Varint.read(buffer);
+    return Coordinates.create(x, y, generation);
+  }
+}
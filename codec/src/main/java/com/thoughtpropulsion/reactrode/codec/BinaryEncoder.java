@@ -0,0 +1,96 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+/**
+ * Encodes the types listed in {@link BinaryCodecs}. Each value becomes one buffer (one RSocket
+ * payload).
+ */
+public class BinaryEncoder extends AbstractEncoder<Object> {
+
+  static final int ALIVE = 1;
+  static final int NEWBORN = 2;
+  // delta frame flags: this bit, plus the compression's ordinal shifted left one
+  static final int KEYFRAME = 1;
+
+  public BinaryEncoder() {
+    super(BinaryCodecs.MIME_TYPE);
+  }
+
+  @Override
+  public boolean canEncode(final ResolvableType elementType, final MimeType mimeType) {
+    return BinaryCodecs.supports(elementType.toClass()) && super.canEncode(elementType, mimeType);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(final Publisher<?> inputStream,
+                                 final DataBufferFactory bufferFactory,
+                                 final ResolvableType elementType, final MimeType mimeType,
+                                 final Map<String, Object> hints) {
+    return Flux.from(inputStream)
+        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+  }
+
+  @Override
+  public DataBuffer encodeValue(final Object value, final DataBufferFactory bufferFactory,
+                                final ResolvableType valueType, final MimeType mimeType,
+                                final Map<String, Object> hints) {
+    if (value instanceof Cell) {
+      final Cell cell = (Cell) value;
+      final DataBuffer buffer = bufferFactory.allocateBuffer(1 + 3 * Varint.MAX_BYTES);
+      buffer.write((byte) ((cell.isAlive ? ALIVE : 0) | (cell.isNewborn ? NEWBORN : 0)));
+      writeCoordinates(buffer, cell.coordinates);
+      return buffer;
+    } else if (value instanceof Coordinates) {
+      final DataBuffer buffer = bufferFactory.allocateBuffer(3 * Varint.MAX_BYTES);
+      writeCoordinates(buffer, (Coordinates) value);
+      return buffer;
+    } else if (value instanceof Empty) {
+      return bufferFactory.allocateBuffer(0);
+    } else if (value instanceof Frame) {
+      final Frame frame = (Frame) value;
+      final ByteBuffer cells = frame.asReadOnlyByteBuffer();
+      final DataBuffer buffer =
+          bufferFactory.allocateBuffer(BinaryCodecs.FRAME_HEADER_MAX_BYTES + cells.remaining());
+      BinaryCodecs.writeFrameHeader(buffer, frame);
+      buffer.write(cells);
+      return buffer;
+    } else if (value instanceof DeltaFrame) {
+      final DeltaFrame delta = (DeltaFrame) value;
+      final DataBuffer buffer =
+          bufferFactory.allocateBuffer(1 + 4 * Varint.MAX_BYTES + delta.bits.length);
+      buffer.write((byte) ((delta.keyframe ? KEYFRAME : 0) | delta.compression.ordinal() << 1));
+      Varint.write(buffer, delta.generation);
+      if (!delta.keyframe) {
+        Varint.write(buffer, delta.baseGeneration);
+      }
+      Varint.write(buffer, delta.columns);
+      Varint.write(buffer, delta.rows);
+      buffer.write(delta.bits);
+      return buffer;
+    } else {
+      throw new EncodingException(String.format("Can't encode %s in binary", value));
+    }
+  }
+
+  private static void writeCoordinates(final DataBuffer buffer, final Coordinates coordinates) {
+    Varint.write(buffer, coordinates.x);
+    Varint.write(buffer, coordinates.y);
+    Varint.write(buffer, coordinates.generation);
+  }
+}
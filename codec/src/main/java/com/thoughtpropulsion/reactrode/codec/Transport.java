@@ -0,0 +1,32 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import java.net.URI;
+
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.client.WebsocketClientTransport;
+
+/**
+ * How a Java client reaches the gameserver. The gameserver listens for WebSocket (which browsers
+ * need) and for plain TCP, which skips WebSocket's framing.
+ */
+public enum Transport {
+  WEBSOCKET,
+  TCP;
+
+  /**
+   * A client transport to the gameserver listening at {@param websocketUri} or at
+   * {@param tcpHost}:{@param tcpPort}, whichever this transport uses.
+   */
+  public ClientTransport clientTransport(final URI websocketUri, final String tcpHost,
+                                         final int tcpPort) {
+    switch (this) {
+      case WEBSOCKET:
+        return WebsocketClientTransport.create(websocketUri);
+      case TCP:
+        return TcpClientTransport.create(tcpHost, tcpPort);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown transport %s", this));
+    }
+  }
+}
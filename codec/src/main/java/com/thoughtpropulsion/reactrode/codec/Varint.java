@@ -0,0 +1,36 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+/*
+ Variable-length ints: seven bits per byte, least significant first, high bit set on all but the
+ last byte. Ints are zigzag encoded first so that small negative numbers (like the primordial
+ generation, -1) are short too.
+ */
+class Varint {
+  private Varint() {}
+
+  // the most bytes a zigzag encoded int can take
+  static final int MAX_BYTES = 5;
+
+  static void write(final DataBuffer buffer, final int value) {
+    int zigzag = (value << 1) ^ (value >> 31);
+    while ((zigzag & ~0x7f) != 0) {
+      buffer.write((byte) (zigzag & 0x7f | 0x80));
+      zigzag >>>= 7;
+    }
+    buffer.write((byte) zigzag);
+  }
+
+  static int read(final DataBuffer buffer) {
+    int zigzag = 0;
+    for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+      final byte b = buffer.read();
+      zigzag |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new IllegalArgumentException("Varint is longer than " + MAX_BYTES + " bytes");
+  }
+}
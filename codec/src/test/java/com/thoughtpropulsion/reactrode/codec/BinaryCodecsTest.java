@@ -0,0 +1,123 @@
+package com.thoughtpropulsion.reactrode.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.FrameEngine;
+import com.thoughtpropulsion.reactrode.model.Patterns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+
+class BinaryCodecsTest {
+
+  private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+  private final BinaryEncoder encoder = new BinaryEncoder();
+  private final BinaryDecoder decoder = new BinaryDecoder();
+
+  @ParameterizedTest
+  @CsvSource({
+      "0,0,0,false,false", "99,99,-1,true,true", "3,4,5,true,false",
+      "-1,65536,2147483647,false,false", "12,0,-2147483648,true,true"})
+  void cellRoundTrip(final int x, final int y, final int generation, final boolean isAlive,
+                     final boolean isNewborn) {
+    final Cell cell = new Cell(Coordinates.create(x, y, generation), isAlive, isNewborn);
+
+    final Cell decoded = (Cell) roundTrip(cell);
+
+    assertThat(decoded).isEqualTo(cell);
+    assertThat(decoded.isNewborn).isEqualTo(isNewborn);
+  }
+
+  @Test
+  void cellIsSmallerThanJson() throws Exception {
+    final Cell cell = Cell.createAlive(Coordinates.create(99, 99, 100_000), true);
+
+    final int binary = encode(cell).readableByteCount();
+    final int json = new ObjectMapper().writeValueAsBytes(cell).length;
+
+    // flags, then two bytes each for x and y and three for the generation
+    assertThat(binary).isEqualTo(8);
+    assertThat(binary).isLessThan(json / 5);
+  }
+
+  @Test
+  void coordinatesAndEmptyRoundTrip() {
+    final Coordinates coordinates = Coordinates.create(1, 2, -1);
+
+    assertThat(roundTrip(coordinates)).isEqualTo(coordinates);
+    assertThat(roundTrip(Empty.create())).isSameAs(Empty.create());
+  }
+
+  @Test
+  void frameRoundTrip() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(70, 9);
+    final Frame frame = Patterns.randomFrame(coordinateSystem, -1, 1, 0.5);
+
+    assertThat(roundTrip(frame)).isEqualTo(frame);
+  }
+
+  @Test
+  void deltaFrameRoundTrip() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(70, 9);
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 7, 1, 0.5);
+    final Frame next = frame.copy();
+    FrameEngine.step(next);
+
+    for (final Compression compression : Compression.values()) {
+      final DeltaFrame keyframe = DeltaFrame.keyframe(frame, compression);
+      final DeltaFrame delta = DeltaFrame.delta(frame, next, compression);
+
+      assertThat(roundTrip(keyframe)).isEqualTo(keyframe);
+      assertThat(roundTrip(delta)).isEqualTo(delta);
+    }
+  }
+
+  @Test
+  void canCodeOnlyKnownTypesAsBinary() {
+    assertThat(encoder.canEncode(ResolvableType.forClass(Cell.class), BinaryCodecs.MIME_TYPE))
+        .isTrue();
+    assertThat(encoder.canEncode(ResolvableType.forClass(String.class), BinaryCodecs.MIME_TYPE))
+        .isFalse();
+    assertThat(decoder.canDecode(ResolvableType.forClass(Cell.class), BinaryCodecs.MIME_TYPE))
+        .isTrue();
+    assertThat(decoder.canDecode(
+        ResolvableType.forClass(Cell.class), MimeTypeUtils.APPLICATION_JSON))
+        .isFalse();
+  }
+
+  @Test
+  void truncatedPayloadIsRejected() {
+    final DataBuffer buffer = bufferFactory.wrap(new byte[]{BinaryEncoder.ALIVE, (byte) 0x80});
+
+    assertThatThrownBy(() ->
+        decoder.decode(buffer, ResolvableType.forClass(Cell.class), BinaryCodecs.MIME_TYPE,
+            Collections.emptyMap()))
+        .isInstanceOf(DecodingException.class);
+  }
+
+  private DataBuffer encode(final Object value) {
+    return encoder.encodeValue(value, bufferFactory, ResolvableType.forInstance(value),
+        BinaryCodecs.MIME_TYPE, Collections.emptyMap());
+  }
+
+  private Object roundTrip(final Object value) {
+    return decoder.decode(encode(value), ResolvableType.forInstance(value),
+        BinaryCodecs.MIME_TYPE, Collections.emptyMap());
+  }
+}
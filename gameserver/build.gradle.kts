@@ -18,15 +18,28 @@ dependencies {
     implementation(enforcedPlatform(project(":bom")))
 
     implementation(project(":model"))
+    implementation(project(":codec"))
 
     implementation("org.springframework.boot:spring-boot-starter-rsocket")
 //    webflux is needed to cause rsocket/websocket to bind to a well-known port
     implementation("org.springframework.boot:spring-boot-starter-webflux")
+
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("org.junit.jupiter:junit-jupiter-params")
+    testImplementation("org.assertj:assertj-core")
+    testImplementation("io.projectreactor:reactor-test")
+
     developmentOnly("org.springframework.boot:spring-boot-devtools")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // gradle test -PleakDetection: track every Netty buffer, and fail tests that leak one
+    if (project.hasProperty("leakDetection")) {
+        systemProperty("io.netty.leakDetection.level", "paranoid")
+        systemProperty("io.netty.customResourceLeakDetector",
+                "com.thoughtpropulsion.reactrode.gameserver.RecordingLeakDetector")
+    }
     testLogging {
         events("passed", "skipped", "failed")
     }
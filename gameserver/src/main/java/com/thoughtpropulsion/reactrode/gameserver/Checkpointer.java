@@ -0,0 +1,69 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import com.thoughtpropulsion.reactrode.model.Checkpoint;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Periodically checkpoints the shared game (see {@link Checkpoint}) so that a restarted server
+ * resumes close to where it left off.
+ *
+ * Once per interval the checkpointer writes the latest generation {@link SharedGenerations} has
+ * computed, on a thread of its own, so a slow disk never holds up the engine (or subscribers).
+ * It doesn't subscribe to the generations: that would ask the engine for more, and keep it
+ * running flat out with nobody watching. With no subscribers the game stands still, and there's
+ * nothing new to write.
+ */
+public class Checkpointer implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(Checkpointer.class);
+
+  private final Scheduler scheduler;
+  private final Disposable checkpoints;
+
+  // only touched on the scheduler's thread
+  private int lastWritten = Integer.MIN_VALUE;
+
+  public Checkpointer(final SharedGenerations sharedGenerations, final Path file,
+                      final Duration interval) {
+    this(sharedGenerations, file, interval, Schedulers.newSingle("checkpoints", true));
+  }
+
+  Checkpointer(final SharedGenerations sharedGenerations, final Path file,
+               final Duration interval, final Scheduler scheduler) {
+    this.scheduler = scheduler;
+    checkpoints = Flux.interval(interval, scheduler)
+        .subscribe(_tick -> {
+              final Frame current = sharedGenerations.getCurrent();
+              if (current != null && current.getGeneration() != lastWritten) {
+                write(current, file);
+              }
+            },
+            error -> logger.error("checkpointing stopped", error));
+  }
+
+  @Override
+  public void close() {
+    checkpoints.dispose();
+    scheduler.dispose();
+  }
+
+  private void write(final Frame frame, final Path file) {
+    try {
+      Checkpoint.write(frame, file);
+      lastWritten = frame.getGeneration();
+    } catch (final IOException e) {
+      // the previous checkpoint is still intact, so carry on and try again next interval
+      logger.warn("couldn't checkpoint generation {}", frame.getGeneration(), e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.Shard;
+import org.reactivestreams.Publisher;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs a game on a cluster of gameserver nodes, for boards too big for one.
+ *
+ * The board is split into bands of whole rows, one per node (see {@link Shard}). Each node steps
+ * its band, exchanging halos with its neighbors as it goes (see {@link ClusterShard}), and streams
+ * every generation of it to us. We stitch the bands of each generation back into a whole frame,
+ * the same frame a single {@link com.thoughtpropulsion.reactrode.model.GameOfLife} would have
+ * computed.
+ *
+ * Like {@link com.thoughtpropulsion.reactrode.model.GameOfLife#getAllFrames()}, our frames are
+ * cold: every subscription starts a new run, from the primordial frame. Nodes work on one run at
+ * a time, so subscribe once (e.g. via {@link SharedGenerations}).
+ */
+public class ClusterCoordinator {
+
+  private final List<String> nodes;
+  private final RSocketStrategies strategies;
+  private final Frame primordialFrame;
+  private final int prefetch;
+
+  /**
+   * @param nodes are the host:port addresses of every node's TCP listener, in band order. This
+   * node may be one of them.
+   * @param prefetch is how many generations each node may compute before we've stitched them
+   */
+  public ClusterCoordinator(final List<String> nodes, final RSocketStrategies strategies,
+                            final Frame primordialFrame, final int prefetch) {
+    if (nodes.isEmpty() || nodes.size() > primordialFrame.coordinateSystem.rows
+        || prefetch < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Expected between 1 and %d nodes, and a positive prefetch, but got %s and %d",
+          primordialFrame.coordinateSystem.rows, nodes, prefetch));
+    }
+    this.nodes = nodes;
+    this.strategies = strategies;
+    this.primordialFrame = primordialFrame;
+    this.prefetch = prefetch;
+  }
+
+  /**
+   * Every generation, starting with the primordial one, as packed frames.
+   */
+  public Flux<Frame> getAllFrames() {
+    return Flux.defer(() -> {
+      final long run = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+      final List<Shard> shards = Shard.partition(primordialFrame.coordinateSystem, nodes.size());
+      return Flux.fromIterable(nodes)
+          .concatMap(node -> ClusterNodes.connect(node, strategies))
+          .collectList()
+          .flatMapMany(requesters -> {
+            final List<Publisher<Frame>> bands = new ArrayList<>(shards.size());
+            for (final Shard shard : shards) {
+              bands.add(bands(requesters.get(shard.index), run, shard));
+            }
+            return Flux.zip(bands, prefetch, generation -> stitch(shards, generation))
+                .doFinally(_signal ->
+                    requesters.forEach(requester -> requester.rsocket().dispose()));
+          });
+    });
+  }
+
+  private Flux<Frame> bands(final RSocketRequester node, final long run, final Shard shard) {
+    return node
+        .route("/rsocket/cluster/bands/" + run + "/" + shard.index)
+        .data(shard.band(primordialFrame))
+        .retrieveFlux(Frame.class);
+  }
+
+  private static Frame stitch(final List<Shard> shards, final Object[] generation) {
+    final List<Frame> bands = new ArrayList<>(generation.length);
+    for (final Object band : generation) {
+      bands.add((Frame) band);
+    }
+    return Shard.stitch(shards, bands);
+  }
+}
@@ -0,0 +1,62 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.springframework.messaging.rsocket.MetadataExtractor.ROUTING;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import reactor.core.publisher.Mono;
+
+/*
+ The gameserver nodes of a cluster (see ClusterCoordinator), as host:port pairs of their plain
+ TCP listeners (reactrode.tcp.port), and connections to them.
+ */
+final class ClusterNodes {
+  private ClusterNodes() {}
+
+  /*
+   Nodes are listed comma-separated, in the order their bands of the board go from north to
+   south.
+   */
+  static List<String> parse(final String nodes) {
+    final List<String> parsed = new ArrayList<>();
+    for (final String node : nodes.split(",")) {
+      if (!node.trim().isEmpty()) {
+        parsed.add(node.trim());
+      }
+    }
+    return parsed;
+  }
+
+  /*
+   A new connection to node. Bands and halos are frames, so we always speak binary. The caller
+   disposes of the connection.
+   */
+  static Mono<RSocketRequester> connect(final String node, final RSocketStrategies strategies) {
+    final int colon = node.lastIndexOf(':');
+    if (colon < 1 || colon == node.length() - 1) {
+      return Mono.error(new IllegalArgumentException(
+          String.format("Expected a cluster node as host:port but got %s", node)));
+    }
+    final int port;
+    try {
+      port = Integer.parseInt(node.substring(colon + 1));
+    } catch (final NumberFormatException e) {
+      return Mono.error(new IllegalArgumentException(
+          String.format("Expected a cluster node as host:port but got %s", node), e));
+    }
+    return RSocketFactory.connect()
+        .mimeType(ROUTING.toString(), BinaryCodecs.MIME_TYPE.toString())
+        .frameDecoder(PayloadDecoder.ZERO_COPY)
+        .transport(TcpClientTransport.create(node.substring(0, colon), port))
+        .start()
+        .map(rSocket ->
+            RSocketRequester.wrap(rSocket, BinaryCodecs.MIME_TYPE, ROUTING, strategies));
+  }
+}
@@ -0,0 +1,170 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.Shard;
+import com.thoughtpropulsion.reactrode.model.Shard.Side;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * This node's part in a cluster: it steps one band of the board (see {@link Shard}) for the
+ * {@link ClusterCoordinator}.
+ *
+ * To step its band from one generation to the next a node needs the row just north of the band
+ * and the row just south of it: the southern edge of the band to the north and the northern edge
+ * of the band to the south. It streams those edges from its neighbors, as they compute them, and
+ * streams its own edges to them. Since a node can't step without its neighbors' edges, neighbors
+ * are never more than a generation apart, and since the bands are only computed as the
+ * coordinator asks for them, the coordinator's demand paces the whole cluster.
+ *
+ * Every node has the same list of nodes, in band order, so each knows its neighbors from the
+ * index of the band the coordinator gives it. A node may be its own neighbor.
+ */
+@Controller
+@ConditionalOnExpression("!'${reactrode.cluster.nodes:}'.isEmpty()")
+public class ClusterShard {
+
+  // a neighbor is never more than a generation ahead or behind, so this many is plenty
+  private static final int EDGE_GENERATIONS = 4;
+  // halos to have on the way while we step
+  private static final int HALO_PREFETCH = 2;
+
+  private final List<String> nodes;
+  private final RSocketStrategies strategies;
+
+  // the edges of our band, by run: a coordinator starts a new run every time it (re)subscribes
+  private final ConcurrentMap<Long, Edges> runs = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ClusterShard(@Value("${reactrode.cluster.nodes}") final String nodes,
+                      final RSocketStrategies strategies) {
+    this(ClusterNodes.parse(nodes), strategies);
+  }
+
+  /**
+   * @param nodes are the host:port addresses of every node's TCP listener, in band order. They're
+   * read when a run starts.
+   */
+  ClusterShard(final List<String> nodes, final RSocketStrategies strategies) {
+    this.nodes = nodes;
+    this.strategies = strategies;
+  }
+
+  /*
+   Run number run of the cluster: step band index, starting from the primordial band we're sent,
+   and stream every generation of it back to the coordinator. Starting a new run abandons any
+   older one.
+   */
+  @MessageMapping("/rsocket/cluster/bands/{run}/{index}")
+  public Flux<Frame> bands(@DestinationVariable final long run,
+                           @DestinationVariable final int index,
+                           final Frame primordialBand) {
+    if (index < 0 || index >= nodes.size()) {
+      return Flux.error(new IllegalArgumentException(String.format(
+          "Expected a band index less than %d but got %d", nodes.size(), index)));
+    }
+    runs.entrySet().removeIf(other -> {
+      if (other.getKey() == run) {
+        return false;
+      }
+      other.getValue().dispose();
+      return true;
+    });
+    final Edges edges = run(run);
+    final int generation = primordialBand.getGeneration();
+    final String north = nodes.get(Math.floorMod(index - 1, nodes.size()));
+    final String south = nodes.get((index + 1) % nodes.size());
+    return Mono.zip(
+        ClusterNodes.connect(north, strategies),
+        ClusterNodes.connect(south, strategies))
+        .flatMapMany(neighbors -> halos(neighbors.getT1(), run, Side.SOUTH, generation)
+            .zipWith(halos(neighbors.getT2(), run, Side.NORTH, generation), HALO_PREFETCH)
+            // stepping a big band takes a while: keep it off the network's threads
+            .publishOn(Schedulers.parallel(), HALO_PREFETCH)
+            .scan(primordialBand,
+                (band, halos) -> Shard.step(band, halos.getT1(), halos.getT2()))
+            .doOnNext(edges::record)
+            .doFinally(_signal -> {
+              neighbors.getT1().rsocket().dispose();
+              neighbors.getT2().rsocket().dispose();
+            }));
+  }
+
+  /*
+   The edge on side of our band in run, for generation and every generation after it, as we
+   compute them.
+   */
+  @MessageMapping("/rsocket/cluster/edges/{run}/{side}/{generation}")
+  public Flux<Frame> edges(@DestinationVariable final long run,
+                           @DestinationVariable final Side side,
+                           @DestinationVariable final int generation,
+                           final Empty _ignored) {
+    final Edges edges = run(run);
+    return Flux.<Integer, Integer>generate(() -> generation, (next, sink) -> {
+      sink.next(next);
+      return next + 1;
+    })
+        .concatMap(next -> edges.get(next)
+            .map(both -> side == Side.NORTH ? both.getT1() : both.getT2()), 1);
+  }
+
+  /*
+   Our halos on the opposite side: the edges on side of a neighbor's band.
+   */
+  private static Flux<Frame> halos(final RSocketRequester neighbor, final long run,
+                                   final Side side, final int generation) {
+    return neighbor
+        .route("/rsocket/cluster/edges/" + run + "/" + side + "/" + generation)
+        .data(Empty.create())
+        .retrieveFlux(Frame.class);
+  }
+
+  /*
+   A neighbor may ask for our edges before the coordinator has started our run.
+   */
+  private Edges run(final long run) {
+    return runs.computeIfAbsent(run, _run -> new Edges());
+  }
+
+  /*
+   The northern and southern edges of a run's recent bands, and of those still to come, by
+   generation.
+   */
+  private static class Edges {
+    private final ConcurrentMap<Integer, MonoProcessor<Tuple2<Frame, Frame>>> generations =
+        new ConcurrentHashMap<>();
+
+    Mono<Tuple2<Frame, Frame>> get(final int generation) {
+      return generations.computeIfAbsent(generation, _generation -> MonoProcessor.create());
+    }
+
+    void record(final Frame band) {
+      final int generation = band.getGeneration();
+      generations.computeIfAbsent(generation, _generation -> MonoProcessor.create())
+          .onNext(Tuples.of(Shard.edge(band, Side.NORTH), Shard.edge(band, Side.SOUTH)));
+      generations.keySet().removeIf(older -> older < generation - EDGE_GENERATIONS);
+    }
+
+    // neighbors still waiting for edges of an abandoned run get an error
+    void dispose() {
+      generations.values().forEach(MonoProcessor::dispose);
+    }
+  }
+}
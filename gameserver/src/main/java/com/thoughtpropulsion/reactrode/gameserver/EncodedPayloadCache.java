@@ -0,0 +1,386 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+/**
+ * Payloads encoded once per generation, shared by every subscriber.
+ *
+ * Even with a shared engine, each subscriber would otherwise encode the same generation for
+ * itself. Here the first subscriber to want a generation in a given encoding (data mime type) and
+ * variant (e.g. the level of a density map) encodes it into one pooled, reference-counted buffer.
+ * Every subscriber, including that one, is sent retained slices of that buffer, so an extra
+ * subscriber costs a cache lookup instead of an encoding. Subscribers that want a generation
+ * while it's being encoded wait for it rather than encoding it too.
+ *
+ * We keep the buffers of the last few generations, within a memory budget, and release the rest
+ * oldest first. A released buffer is freed once the subscribers still sending it are done with
+ * it: each holds a reference to the buffer while it sends that generation, and each slice holds
+ * one of its own from when it's sent until it's released.
+ */
+public class EncodedPayloadCache implements AutoCloseable {
+
+  // the previous generation of cells encoded without one (every live cell is newborn)
+  private static final int NO_PREVIOUS = Integer.MIN_VALUE;
+
+  private final RSocketStrategies strategies;
+  private final NettyDataBufferFactory bufferFactory;
+  private final int maximumGenerations;
+  private final long budgetBytes;
+
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicInteger latestGeneration = new AtomicInteger(Integer.MIN_VALUE);
+
+  public EncodedPayloadCache(final RSocketStrategies strategies, final int maximumGenerations,
+                             final long budgetBytes) {
+    if (maximumGenerations < 1 || budgetBytes < 0) {
+      throw new IllegalArgumentException(String.format(
+          "Expected at least one generation and a non-negative budget but got %d and %d",
+          maximumGenerations, budgetBytes));
+    }
+    this.strategies = strategies;
+    this.bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    this.maximumGenerations = maximumGenerations;
+    this.budgetBytes = budgetBytes;
+  }
+
+  /**
+   * Release every buffer. Spring calls this when the application context closes.
+   */
+  @Override
+  public void close() {
+    entries.forEach(this::evict);
+  }
+
+  /**
+   * @return one payload per frame of {@param frames}: {@param value} of the frame, encoded as
+   * {@param mimeType}. {@param variant} names {@param value}: every call with the same variant
+   * must compute the same value from the same generation.
+   */
+  public <T> Flux<DataBuffer> encode(final Publisher<Frame> frames, final String variant,
+                                     final MimeType mimeType, final Class<T> type,
+                                     final Function<Frame, T> value) {
+    return Flux.from(frames)
+        .concatMap(frame -> payloads(
+            new Key(frame.getGeneration(), NO_PREVIOUS, variant, mimeType), type,
+            () -> Collections.singletonList(value.apply(frame))), 1)
+        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+  }
+
+  /**
+   * @return the cells of {@param frames}, one payload per cell, encoded as {@param mimeType}. As
+   * with {@link com.thoughtpropulsion.reactrode.model.GameOfLife#toCells(Publisher)} a live cell
+   * is newborn if it was dead in the previous frame, so a subscriber that skipped a generation
+   * shares the encoding with others who skipped the same one.
+   */
+  public Flux<DataBuffer> encodeCells(final Publisher<Frame> frames, final MimeType mimeType) {
+    return Flux.defer(() -> {
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      return Flux.from(frames)
+          .concatMap(frame -> {
+            final Frame before = previous.getAndSet(frame);
+            return payloads(
+                new Key(frame.getGeneration(),
+                    before == null ? NO_PREVIOUS : before.getGeneration(), "cells", mimeType),
+                Cell.class, () -> frame.toCells(before));
+          }, 1);
+    })
+        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+  }
+
+  /**
+   * @return {@param frames} as {@link DeltaFrame}s (see
+   * {@link DeltaFrame#encode(Publisher, int, Compression)}), encoded as {@param mimeType}. A
+   * delta is computed and compressed once per generation and base generation, so subscribers
+   * that skipped the same generations share it, as do keyframes.
+   */
+  public Flux<DataBuffer> encodeDeltas(final Publisher<Frame> frames, final int keyframeInterval,
+                                       final Compression compression, final MimeType mimeType) {
+    return DeltaFrame.encode(frames, keyframeInterval, (base, frame) -> payloads(
+        new Key(frame.getGeneration(), base == null ? NO_PREVIOUS : base.getGeneration(),
+            "deltas/" + compression, mimeType),
+        DeltaFrame.class, () -> Collections.singletonList(base == null
+            ? DeltaFrame.keyframe(frame, compression)
+            : DeltaFrame.delta(base, frame, compression))))
+        .concatMap(Function.identity(), 1)
+        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  long bytes() {
+    return bytes.get();
+  }
+
+  /*
+   Retained slices of the cached encoding, encoding it first if need be. We hold a reference to
+   the encoding until the last slice is sent or the subscriber cancels, and only retain a slice as
+   it's sent, so a subscriber that cancels partway through a generation leaves nothing behind.
+   */
+  private <T> Flux<DataBuffer> payloads(final Key key, final Class<T> type,
+                                        final Supplier<List<T>> values) {
+    return Flux.using(
+        () -> retained(key, type, values),
+        entry -> Flux.range(0, entry.count())
+            .map(index -> bufferFactory.wrap(entry.retainedSlice(index))),
+        Entry::release);
+  }
+
+  /*
+   The cached encoding, retained. The entry may be evicted between our finding it and retaining
+   it, or its encoding may fail, in which case we look again.
+   */
+  private <T> Entry retained(final Key key, final Class<T> type,
+                             final Supplier<List<T>> values) {
+    while (true) {
+      final Entry found = entries.get(key);
+      if (found == null) {
+        /*
+         Claim the key with an empty entry and encode outside the map, so we don't hold up other
+         keys while we encode. Anyone else who wants this one waits for us in retain().
+         */
+        final Entry claimed = new Entry();
+        if (entries.putIfAbsent(key, claimed) == null) {
+          return encodeRetained(key, claimed, type, values);
+        }
+      } else if (found.retain()) {
+        return found;
+      } else {
+        entries.remove(key, found);
+      }
+    }
+  }
+
+  /*
+   Only an encoding adds to the cache, so this is the only time we need to evict.
+   */
+  private <T> Entry encodeRetained(final Key key, final Entry entry, final Class<T> type,
+                                   final Supplier<List<T>> values) {
+    try {
+      encode(values.get(), type, key.mimeType, entry);
+    } catch (final RuntimeException e) {
+      entries.remove(key, entry);
+      entry.fail(e);
+      throw e;
+    }
+    bytes.addAndGet(entry.size());
+    latestGeneration.accumulateAndGet(key.generation, Math::max);
+    evict();
+    return entry;
+  }
+
+  private <T> void encode(final List<T> values, final Class<T> type, final MimeType mimeType,
+                          final Entry entry) {
+    final ResolvableType valueType = ResolvableType.forClass(type);
+    final Encoder<T> encoder = strategies.encoder(valueType, mimeType);
+    if (values.size() == 1) {
+      // keep the encoder's buffer as it is: it may be a slice of the value (see PooledFrameEncoder)
+      final ByteBuf encoded = NettyDataBufferFactory.toByteBuf(encoder.encodeValue(
+          values.get(0), bufferFactory, valueType, mimeType, Collections.emptyMap()));
+      entry.complete(encoded, new int[]{encoded.writerIndex()});
+      return;
+    }
+    final ByteBuf encoded = bufferFactory.getByteBufAllocator().directBuffer();
+    final int[] ends = new int[values.size()];
+    try {
+      for (int i = 0; i < ends.length; i++) {
+        final DataBuffer value = encoder.encodeValue(
+            values.get(i), bufferFactory, valueType, mimeType, Collections.emptyMap());
+        try {
+          encoded.writeBytes(NettyDataBufferFactory.toByteBuf(value));
+        } finally {
+          DataBufferUtils.release(value);
+        }
+        ends[i] = encoded.writerIndex();
+      }
+    } catch (final RuntimeException e) {
+      encoded.release();
+      throw e;
+    }
+    entry.complete(encoded, ends);
+  }
+
+  /*
+   Drop generations that are too old, then, oldest first, whatever is over budget. Entries still
+   being encoded aren't counted yet, so we leave them be.
+   */
+  private synchronized void evict() {
+    final int oldest = latestGeneration.get() - maximumGenerations;
+    entries.forEach((key, entry) -> {
+      if (key.generation <= oldest && entry.isEncoded()) {
+        evict(key, entry);
+      }
+    });
+    if (bytes.get() > budgetBytes) {
+      final List<Map.Entry<Key, Entry>> byAge = new ArrayList<>(entries.entrySet());
+      byAge.sort(Comparator.comparingInt(keyed -> keyed.getKey().generation));
+      for (final Map.Entry<Key, Entry> keyed : byAge) {
+        if (bytes.get() <= budgetBytes) {
+          break;
+        }
+        if (keyed.getValue().isEncoded()) {
+          evict(keyed.getKey(), keyed.getValue());
+        }
+      }
+    }
+  }
+
+  private void evict(final Key key, final Entry entry) {
+    if (entries.remove(key, entry)) {
+      bytes.addAndGet(-entry.size());
+      entry.releaseCached();
+    }
+  }
+
+  private static class Key {
+    final int generation;
+    final int previousGeneration;
+    final String variant;
+    final MimeType mimeType;
+
+    Key(final int generation, final int previousGeneration, final String variant,
+        final MimeType mimeType) {
+      this.generation = generation;
+      this.previousGeneration = previousGeneration;
+      this.variant = variant;
+      this.mimeType = mimeType;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return generation == that.generation &&
+          previousGeneration == that.previousGeneration &&
+          variant.equals(that.variant) &&
+          mimeType.equals(that.mimeType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(generation, previousGeneration, variant, mimeType);
+    }
+  }
+
+  /*
+   One generation's encoding: the values back to back in one buffer, and where each one ends.
+   The cache holds one reference to the buffer, each subscriber sending it holds another, and so
+   does each slice handed out. An entry starts out empty, until whoever claimed it has encoded it.
+   Completing the encoding publishes its fields to everyone who has waited for it.
+   */
+  private static class Entry {
+    // completes once the encoding is in place, or fails with it
+    private final CompletableFuture<Void> encoding = new CompletableFuture<>();
+    private ByteBuf encoded;
+    private int[] ends;
+    private int size;
+    private boolean released;
+
+    /*
+     The encoding, retained for whoever encoded it. If the cache closed meanwhile, theirs is the
+     only reference.
+     */
+    synchronized void complete(final ByteBuf encoded, final int[] ends) {
+      this.encoded = encoded;
+      this.ends = ends;
+      this.size = encoded.readableBytes();
+      encoded.retain();
+      if (released) {
+        encoded.release();
+      }
+      encoding.complete(null);
+    }
+
+    void fail(final RuntimeException e) {
+      encoding.completeExceptionally(e);
+    }
+
+    boolean isEncoded() {
+      return encoding.isDone() && !encoding.isCompletedExceptionally();
+    }
+
+    // only once encoded
+    int size() {
+      return size;
+    }
+
+    // only while holding a reference
+    int count() {
+      return ends.length;
+    }
+
+    // waits for the encoding; false if that failed or the cache has released the entry
+    boolean retain() {
+      try {
+        encoding.join();
+      } catch (final CompletionException e) {
+        return false;
+      }
+      synchronized (this) {
+        if (released) {
+          return false;
+        }
+        encoded.retain();
+        return true;
+      }
+    }
+
+    // only while holding a reference
+    ByteBuf retainedSlice(final int index) {
+      final int start = index == 0 ? encoded.readerIndex() : ends[index - 1];
+      return encoded.retainedSlice(start, ends[index] - start);
+    }
+
+    // a reference from retain() or complete()
+    void release() {
+      encoded.release();
+    }
+
+    // an entry still being encoded is released as soon as it's complete
+    synchronized void releaseCached() {
+      if (!released) {
+        released = true;
+        if (encoded != null) {
+          encoded.release();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameInfo;
+import com.thoughtpropulsion.reactrode.model.GameOfLifeSystem;
+import com.thoughtpropulsion.reactrode.model.GameSpec;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Games created by clients, by id, alongside the one game configured at startup.
+ *
+ * Each game has its own board, pattern and engine, shared by all of its subscribers (see
+ * {@link SharedGenerations}). A game nobody is subscribed to is idle. A game that stays idle for
+ * the idle timeout, whether because its last subscriber left or because nobody ever subscribed,
+ * is evicted: its engine stops and its id is forgotten.
+ */
+public class Games implements AutoCloseable {
+
+  private final int primordialGenerationNumber;
+  private final int queueCapacity;
+  private final int keyframeInterval;
+  private final int maximumGames;
+  private final long maximumCells;
+  private final Duration idleTimeout;
+  private final Scheduler scheduler;
+
+  private final ConcurrentMap<String, Game> games = new ConcurrentHashMap<>();
+  // games created and not yet stopped, including any still being made
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicLong ids = new AtomicLong();
+
+  /**
+   * @param maximumCells is the most cells (columns x rows) a client may ask for on one board
+   */
+  public Games(final int primordialGenerationNumber, final int queueCapacity,
+               final int keyframeInterval, final int maximumGames, final long maximumCells,
+               final Duration idleTimeout) {
+    this(primordialGenerationNumber, queueCapacity, keyframeInterval, maximumGames, maximumCells,
+        idleTimeout, Schedulers.parallel());
+  }
+
+  Games(final int primordialGenerationNumber, final int queueCapacity,
+        final int keyframeInterval, final int maximumGames, final long maximumCells,
+        final Duration idleTimeout, final Scheduler scheduler) {
+    this.primordialGenerationNumber = primordialGenerationNumber;
+    this.queueCapacity = queueCapacity;
+    this.keyframeInterval = keyframeInterval;
+    this.maximumGames = maximumGames;
+    this.maximumCells = maximumCells;
+    this.idleTimeout = idleTimeout;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Stop every game. Spring calls this when the application context closes.
+   */
+  @Override
+  public void close() {
+    games.keySet().forEach(this::stop);
+  }
+
+  /**
+   * Create a game. Its engine starts when it gets its first subscriber. Making a big board takes
+   * a while, so don't call this on an I/O thread.
+   *
+   * @throws IllegalArgumentException if {@param spec} doesn't describe a board we can make, or
+   * one bigger than we allow
+   * @throws IllegalStateException if we're already running as many games as we're allowed
+   */
+  public GameInfo create(final GameSpec spec) {
+    if ((long) spec.columns * spec.rows > maximumCells) {
+      throw new IllegalArgumentException(String.format(
+          "Can't create a %d x %d game: the maximum is %d cells",
+          spec.columns, spec.rows, maximumCells));
+    }
+    final CoordinateSystem coordinateSystem = spec.coordinateSystem();
+    // count the game before making it, so concurrent creates can't get past the limit together
+    if (running.incrementAndGet() > maximumGames) {
+      running.decrementAndGet();
+      throw new IllegalStateException(String.format(
+          "Can't create a game: already running the maximum of %d", maximumGames));
+    }
+    final Game game;
+    try {
+      game = new Game(Long.toString(ids.incrementAndGet()), spec, coordinateSystem);
+    } catch (final RuntimeException e) {
+      running.decrementAndGet();
+      throw e;
+    }
+    games.put(game.id, game);
+    game.becameIdle();
+    return game.info();
+  }
+
+  public Flux<GameInfo> list() {
+    return Flux.defer(() -> Flux.fromIterable(games.values()).map(Game::info));
+  }
+
+  /**
+   * Subscribe to game {@param id}. The flux completes if the game is stopped.
+   *
+   * @throws IllegalArgumentException (via the flux) if there is no such game
+   */
+  public Flux<Frame> frames(final String id, final SlowConsumerPolicy policy) {
+    return Flux.defer(() -> get(id).frames(policy));
+  }
+
+  /**
+   * Stop game {@param id}, completing its subscribers' fluxes.
+   *
+   * @return the game as it was when stopped, or empty if there is no such game (any more)
+   */
+  public Optional<GameInfo> stop(final String id) {
+    final Game game = games.remove(id);
+    if (game == null) {
+      return Optional.empty();
+    }
+    game.stop();
+    return Optional.of(game.info());
+  }
+
+  private Game get(final String id) {
+    final Game game = games.get(id);
+    if (game == null) {
+      throw new IllegalArgumentException(String.format("No game %s", id));
+    }
+    return game;
+  }
+
+  private class Game {
+    final String id;
+    final GameSpec spec;
+    final SharedGenerations sharedGenerations;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final MonoProcessor<Boolean> stopped = MonoProcessor.create();
+    private volatile Disposable eviction = Disposables.disposed();
+
+    Game(final String id, final GameSpec spec, final CoordinateSystem coordinateSystem) {
+      this.id = id;
+      this.spec = spec;
+      /*
+       No history: nothing replays a game's old generations, and a history's off-heap budget per
+       game wouldn't count against the maximum games or cells.
+       */
+      final GameOfLifeSystem gameOfLifeSystem = GameOfLifeSystem.create(
+          spec.primordialFrame(coordinateSystem, primordialGenerationNumber), null);
+      this.sharedGenerations = new SharedGenerations(
+          gameOfLifeSystem.getAllFrames(), queueCapacity, keyframeInterval);
+    }
+
+    Flux<Frame> frames(final SlowConsumerPolicy policy) {
+      return sharedGenerations.frames(policy)
+          .takeUntilOther(stopped)
+          .doOnSubscribe(_subscription -> {
+            subscribers.incrementAndGet();
+            eviction.dispose();
+          })
+          .doFinally(_signal -> {
+            if (subscribers.decrementAndGet() == 0) {
+              becameIdle();
+            }
+          });
+    }
+
+    void becameIdle() {
+      eviction = Mono.delay(idleTimeout, scheduler)
+          .subscribe(_tick -> {
+            // someone may have subscribed just as we fired
+            if (subscribers.get() == 0 && games.remove(id, this)) {
+              stop();
+            }
+          });
+    }
+
+    // only once the game is no longer in games
+    void stop() {
+      running.decrementAndGet();
+      eviction.dispose();
+      stopped.onNext(true);
+      sharedGenerations.close();
+    }
+
+    GameInfo info() {
+      final Frame current = sharedGenerations.getCurrent();
+      return GameInfo.create(id, spec,
+          current == null ? primordialGenerationNumber : current.getGeneration(),
+          subscribers.get());
+    }
+  }
+}
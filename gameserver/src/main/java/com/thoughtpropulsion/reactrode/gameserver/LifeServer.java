@@ -1,25 +1,209 @@
 package com.thoughtpropulsion.reactrode.gameserver;
 
+import com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy;
 import com.thoughtpropulsion.reactrode.model.Cell;
 import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.DensityMap;
 import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameInfo;
+import com.thoughtpropulsion.reactrode.model.GameOfLife;
+import com.thoughtpropulsion.reactrode.model.GameSpec;
+import com.thoughtpropulsion.reactrode.model.GenerationHistory;
+import com.thoughtpropulsion.reactrode.model.GenerationStatistics;
+import com.thoughtpropulsion.reactrode.model.StreamControl;
+import com.thoughtpropulsion.reactrode.model.Viewport;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Controller
 public class LifeServer {
 
   private final Publisher<Cell> allGenerations;
+  private final Publisher<Frame> allFrames;
+  private final SharedGenerations sharedGenerations;
+  private final GenerationHistory history;
+  private final Games games;
+  private final EncodedPayloadCache encodedPayloads;
+  private final boolean shared;
+  private final SlowConsumerPolicy slowConsumerPolicy;
+  private final int keyframeInterval;
+  private final Pacer pacer;
+  private final int framesPerSecond;
 
-  public LifeServer(final Publisher<Cell> allGenerations) {
+  public LifeServer(final Publisher<Cell> allGenerations,
+                    final Publisher<Frame> allFrames,
+                    final SharedGenerations sharedGenerations,
+                    final GenerationHistory history,
+                    final Games games,
+                    final EncodedPayloadCache encodedPayloads,
+                    @Value("${reactrode.generations.shared:true}") final boolean shared,
+                    @Value("${reactrode.generations.slow-consumer-policy:DROP_TO_LATEST}")
+                    final SlowConsumerPolicy slowConsumerPolicy,
+                    @Value("${reactrode.generations.keyframe-interval:32}")
+                    final int keyframeInterval,
+                    final Pacer pacer,
+                    @Value("${reactrode.pacing.frames-per-second:0}")
+                    final int framesPerSecond) {
     this.allGenerations = allGenerations;
+    this.allFrames = allFrames;
+    this.sharedGenerations = sharedGenerations;
+    this.history = history;
+    this.games = games;
+    this.encodedPayloads = encodedPayloads;
+    this.shared = shared;
+    this.slowConsumerPolicy = slowConsumerPolicy;
+    this.keyframeInterval = keyframeInterval;
+    this.pacer = pacer;
+    this.framesPerSecond = framesPerSecond;
   }
 
+  /*
+   In shared mode, subscribers join the one running game at its current generation. Otherwise
+   each subscriber gets a game of its own, starting from the primordial generation.
+
+   Shared generations are encoded once, in each encoding clients ask for (see
+   EncodedPayloadCache), and every subscriber is sent the same bytes.
+   */
   @MessageMapping("/rsocket/all-generations")
-  public Publisher<Cell> allGenerations(final Coordinates _ignored) {
-    return Flux.from(allGenerations);
+  public Publisher<?> allGenerations(final Coordinates _ignored,
+                                     final RSocketRequester requester) {
+    if (shared) {
+      return encodedPayloads.encodeCells(frames(slowConsumerPolicy), requester.dataMimeType());
+    } else {
+      return Flux.from(allGenerations);
+    }
+  }
+
+  /*
+   The same generations as all-generations, but one payload per generation: the packed frame,
+   instead of one payload (and one RSocket frame, with its header, metadata and share of request-n)
+   per cell. Clients unpack frames into cells with GameOfLife.toCells(). Needs the binary codec.
+   */
+  @MessageMapping("/rsocket/all-frames")
+  public Publisher<DataBuffer> allFrames(final Empty _ignored, final RSocketRequester requester) {
+    return encodedFrames(frames(slowConsumerPolicy), requester);
+  }
+
+  /*
+   All frames after the given generation: a client that reconnects after RSocket's resumption
+   session has expired asks for the generations after the last one it saw. We send those still in
+   the history (without recomputing them) and then carry on with live frames.
+   */
+  @MessageMapping("/rsocket/all-frames/after/{generation}")
+  public Publisher<DataBuffer> allFramesAfter(@DestinationVariable final int generation,
+                                              final Empty _ignored,
+                                              final RSocketRequester requester) {
+    return encodedFrames(history.replay(generation, frames(slowConsumerPolicy)), requester);
+  }
+
+  /*
+   Like all-frames, but each frame is sent as a delta from the one before it, with keyframes at the
+   same generations SKIP_TO_KEYFRAME skips to, compressed as the route asks e.g.
+   /rsocket/deltas/DEFLATE. A client
+   that detects a gap resyncs by requesting the stream again: a new stream starts with a keyframe.
+   Deltas are cached like other encodings, so subscribers on the same base share them.
+   */
+  @MessageMapping("/rsocket/deltas/{compression}")
+  public Publisher<DataBuffer> deltas(@DestinationVariable final Compression compression,
+                                      final Empty _ignored,
+                                      final RSocketRequester requester) {
+    return encodedPayloads.encodeDeltas(
+        frames(slowConsumerPolicy), keyframeInterval, compression, requester.dataMimeType());
+  }
+
+  /*
+   Only the cells inside the viewport, in board coordinates, for every stride-th generation. A
+   client showing a small window onto a big board gets a small stream.
+   */
+  @MessageMapping("/rsocket/viewport")
+  public Publisher<Cell> viewport(final Viewport viewport) {
+    return viewport.cells(frames(slowConsumerPolicy));
+  }
+
+  /*
+   A request channel: the client streams StreamControls (viewport, stride, frame rate, pause) and
+   we stream back the cells the latest one asks for. Changing controls adjusts the stream in place
+   instead of cancelling and resubscribing.
+   */
+  @MessageMapping("/rsocket/channel")
+  public Publisher<Cell> channel(final Publisher<StreamControl> controls) {
+    return StreamControl.cells(frames(slowConsumerPolicy), controls);
+  }
+
+  /*
+   Live cell counts per 2^level x 2^level block, for zoomed-out views. Density maps are cached on
+   the (shared) frames so clients at the same zoom level share the work of computing them, and
+   their encodings are cached per level so they share the work of encoding them too.
+   */
+  @MessageMapping("/rsocket/density/{level}")
+  public Publisher<DataBuffer> density(@DestinationVariable final int level,
+                                       final Empty _ignored,
+                                       final RSocketRequester requester) {
+    return encodedPayloads.encode(frames(slowConsumerPolicy), "density/" + level,
+        requester.dataMimeType(), DensityMap.class, frame -> frame.getDensityMap(level));
+  }
+
+  /*
+   Population, births, deaths and bounding box per generation. The engine computes these while
+   stepping so monitoring doesn't have to consume (and count) every cell. A monitor that falls
+   behind skips to the latest generation.
+   */
+  @MessageMapping("/rsocket/statistics")
+  public Publisher<GenerationStatistics> statistics(final Empty _ignored) {
+    return frames(SlowConsumerPolicy.DROP_TO_LATEST).map(Frame::getStatistics);
+  }
+
+  /*
+   Besides the game configured at startup, clients can create games of their own. Each has its
+   own board, pattern and engine, shared by everyone who subscribes to its id. A game is evicted
+   once it has been idle (without subscribers) for a while.
+
+   Seeding a big board takes a while, so it's done off the I/O thread the request came in on.
+   */
+  @MessageMapping("/rsocket/games/create")
+  public Mono<GameInfo> createGame(final GameSpec spec) {
+    return Mono.fromCallable(() -> games.create(spec))
+        .subscribeOn(Schedulers.parallel());
+  }
+
+  @MessageMapping("/rsocket/games/list")
+  public Publisher<GameInfo> listGames(final Empty _ignored) {
+    return games.list();
+  }
+
+  @MessageMapping("/rsocket/games/{id}")
+  public Publisher<Cell> game(@DestinationVariable final String id,
+                              final Coordinates _ignored) {
+    return GameOfLife.toCells(gameFrames(id, Empty.create()));
+  }
+
+  @MessageMapping("/rsocket/games/{id}/frames")
+  public Flux<Frame> gameFrames(@DestinationVariable final String id, final Empty _ignored) {
+    return pacer.pace(games.frames(id, pacedPolicy(slowConsumerPolicy)), framesPerSecond);
+  }
+
+  @MessageMapping("/rsocket/games/{id}/stop")
+  public Mono<GameInfo> stopGame(@DestinationVariable final String id, final Empty _ignored) {
+    return Mono.fromCallable(() -> games.stop(id)).flatMap(Mono::justOrEmpty);
+  }
+
+  /*
+   Request-response with nothing to it, so clients can measure round trip times, e.g. to compare
+   transports.
+   */
+  @MessageMapping("/rsocket/ping")
+  public Mono<Empty> ping(final Empty _ignored) {
+    return Mono.just(Empty.create());
   }
 
   @MessageMapping("/rsocket/empties")
@@ -29,4 +213,30 @@ public class LifeServer {
     });
   }
 
-}
\ No newline at end of file
+  private Flux<DataBuffer> encodedFrames(final Publisher<Frame> frames,
+                                         final RSocketRequester requester) {
+    return encodedPayloads.encode(
+        frames, "frame", requester.dataMimeType(), Frame.class, frame -> frame);
+  }
+
+  /*
+   When paced, every route built on this releases at most framesPerSecond generations per second,
+   always the latest.
+   */
+  private Flux<Frame> frames(final SlowConsumerPolicy policy) {
+    if (shared) {
+      return pacer.pace(sharedGenerations.frames(pacedPolicy(policy)), framesPerSecond);
+    } else {
+      return pacer.pace(allFrames, framesPerSecond);
+    }
+  }
+
+  /*
+   A paced subscriber falls behind on purpose, so rather than apply policy to it we keep only the
+   latest generation for its next release.
+   */
+  private SlowConsumerPolicy pacedPolicy(final SlowConsumerPolicy policy) {
+    return framesPerSecond > 0 ? SlowConsumerPolicy.CONFLATE : policy;
+  }
+
+}
@@ -0,0 +1,114 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Releases generations to subscribers at a fixed rate, freshest first.
+ *
+ * A browser can't draw more than about 60 generations per second. If we send more than it can
+ * draw they pile up in buffers along the way, and what it draws falls further and further behind
+ * the game. Instead, a paced subscriber gets at most so many generations per second. If it's
+ * behind, the generations it missed are conflated away: it always gets the latest one next.
+ *
+ * We pace demand, not delivery: a paced subscriber asks its source for one generation per release,
+ * and only if it's ready for one, so a source that computes generations on demand (e.g.
+ * {@link SharedGenerations}) computes no more than the subscribers are shown. The source should
+ * conflate what it can't send (e.g. {@link SharedGenerations.SlowConsumerPolicy#CONFLATE}), so
+ * the generation it sends on request is the latest.
+ *
+ * One timer ticks for every paced subscriber, rather than a timer per subscriber. It runs only
+ * while someone is subscribed. A subscriber wanting F generations per second is released on every
+ * (ticks per second / F)th tick.
+ */
+public class Pacer implements AutoCloseable {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final int ticksPerSecond;
+  private final Scheduler scheduler;
+  private final Flux<Long> ticks;
+
+  public Pacer(final int ticksPerSecond) {
+    this(ticksPerSecond, Schedulers.newSingle("pacer", true));
+  }
+
+  Pacer(final int ticksPerSecond, final Scheduler scheduler) {
+    if (ticksPerSecond < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Expected at least one tick per second but got %d", ticksPerSecond));
+    }
+    this.ticksPerSecond = ticksPerSecond;
+    this.scheduler = scheduler;
+    this.ticks = Flux.interval(Duration.ofNanos(NANOS_PER_SECOND / ticksPerSecond), scheduler)
+        // a tick nobody is ready for is just skipped
+        .onBackpressureDrop()
+        .share();
+  }
+
+  @Override
+  public void close() {
+    scheduler.dispose();
+  }
+
+  /**
+   * @return {@param source} released at most {@param framesPerSecond} times per second (rounded
+   * to a whole number of ticks), latest first. If {@param framesPerSecond} is not positive,
+   * {@param source} isn't paced at all.
+   */
+  public <T> Flux<T> pace(final Publisher<T> source, final int framesPerSecond) {
+    if (framesPerSecond <= 0) {
+      return Flux.from(source);
+    }
+    final long ticksPerRelease = Math.max(1, Math.round((double) ticksPerSecond / framesPerSecond));
+    return Flux.create(sink -> {
+      // whether we've asked the source for an element it hasn't sent yet
+      final AtomicBoolean requested = new AtomicBoolean();
+      final BaseSubscriber<T> elements = new BaseSubscriber<T>() {
+        @Override
+        protected void hookOnSubscribe(final Subscription subscription) {
+          // nothing until the first release
+        }
+
+        @Override
+        protected void hookOnNext(final T element) {
+          requested.set(false);
+          sink.next(element);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+          sink.complete();
+        }
+
+        @Override
+        protected void hookOnError(final Throwable error) {
+          sink.error(error);
+        }
+      };
+      // on each release, ask for one element if the subscriber is ready for it
+      final Disposable releases = ticks
+          .filter(tick -> tick % ticksPerRelease == 0)
+          .subscribe(_tick -> {
+            if (sink.requestedFromDownstream() > 0 && requested.compareAndSet(false, true)) {
+              elements.request(1);
+            }
+          });
+      sink.onDispose(() -> {
+        releases.dispose();
+        elements.dispose();
+      });
+      source.subscribe(elements);
+    }, OverflowStrategy.LATEST);
+  }
+}
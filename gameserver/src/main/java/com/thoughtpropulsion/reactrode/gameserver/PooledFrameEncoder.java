@@ -0,0 +1,81 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+/**
+ * Encodes {@link Frame}s in the binary encoding (see {@link BinaryCodecs}) straight into pooled,
+ * direct Netty buffers, which RSocket sends without copying.
+ *
+ * A frame whose cells are already off the heap (direct or memory-mapped) isn't copied at all: the
+ * payload is the header followed by a read-only slice of the frame's own bytes. Frames are never
+ * stepped once they've been handed to subscribers, so those bytes won't change while we send
+ * them. A frame on the heap is copied once, into the pooled buffer.
+ *
+ * Either way, encoding a frame allocates nothing on the heap but the buffers' small wrappers.
+ */
+public class PooledFrameEncoder extends AbstractEncoder<Frame> {
+
+  private final NettyDataBufferFactory bufferFactory;
+
+  public PooledFrameEncoder() {
+    this(PooledByteBufAllocator.DEFAULT);
+  }
+
+  PooledFrameEncoder(final ByteBufAllocator allocator) {
+    super(BinaryCodecs.MIME_TYPE);
+    this.bufferFactory = new NettyDataBufferFactory(allocator);
+  }
+
+  @Override
+  public boolean canEncode(final ResolvableType elementType, final MimeType mimeType) {
+    return elementType.toClass() == Frame.class && super.canEncode(elementType, mimeType);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(final Publisher<? extends Frame> inputStream,
+                                 final DataBufferFactory _ignored,
+                                 final ResolvableType elementType, final MimeType mimeType,
+                                 final Map<String, Object> hints) {
+    return Flux.from(inputStream)
+        .map(frame -> encodeValue(frame, bufferFactory, elementType, mimeType, hints));
+  }
+
+  /*
+   We ignore the factory we're given: whatever it is, we want pooled direct buffers.
+   */
+  @Override
+  public DataBuffer encodeValue(final Frame frame, final DataBufferFactory _ignored,
+                                final ResolvableType valueType, final MimeType mimeType,
+                                final Map<String, Object> hints) {
+    final ByteBufAllocator allocator = bufferFactory.getByteBufAllocator();
+    final ByteBuffer cells = frame.asReadOnlyByteBuffer();
+    if (frame.isDirect()) {
+      final ByteBuf header = allocator.directBuffer(BinaryCodecs.FRAME_HEADER_MAX_BYTES);
+      BinaryCodecs.writeFrameHeader(bufferFactory.wrap(header), frame);
+      return bufferFactory.wrap(allocator.compositeDirectBuffer(2)
+          .addComponents(true, header, Unpooled.wrappedBuffer(cells)));
+    } else {
+      final ByteBuf encoded =
+          allocator.directBuffer(BinaryCodecs.FRAME_HEADER_MAX_BYTES + cells.remaining());
+      BinaryCodecs.writeFrameHeader(bufferFactory.wrap(encoded), frame);
+      encoded.writeBytes(cells);
+      return bufferFactory.wrap(encoded);
+    }
+  }
+}
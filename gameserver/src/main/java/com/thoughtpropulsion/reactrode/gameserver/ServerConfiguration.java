@@ -1,23 +1,53 @@
 package com.thoughtpropulsion.reactrode.gameserver;
 
 import static com.thoughtpropulsion.reactrode.model.Patterns.pufferfishSpaceshipPattern;
+import static com.thoughtpropulsion.reactrode.model.Patterns.randomPattern;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
 import com.thoughtpropulsion.reactrode.model.Cell;
+import com.thoughtpropulsion.reactrode.model.Checkpoint;
 import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
-import com.thoughtpropulsion.reactrode.model.GameOfLife;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameOfLifeSystem;
+import com.thoughtpropulsion.reactrode.model.GenerationHistory;
 import com.thoughtpropulsion.reactrode.model.Pattern;
 import com.thoughtpropulsion.reactrode.model.Patterns;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.rsocket.resume.InMemoryResumableFramesStore;
 import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
+import org.springframework.boot.rsocket.netty.NettyRSocketServerFactory;
+import org.springframework.boot.rsocket.server.RSocketServer;
+import org.springframework.boot.rsocket.server.ServerRSocketFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.codec.CharSequenceEncoder;
+import org.springframework.core.codec.DataBufferEncoder;
 import org.springframework.core.codec.StringDecoder;
-import reactor.core.publisher.Flux;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
 
 @Configuration
 public class ServerConfiguration {
 
+  private static final Logger logger = LoggerFactory.getLogger(ServerConfiguration.class);
+
   @Bean
   public CoordinateSystem getCoordinateSystem() {
     return smallCoordinateSystem();
@@ -26,19 +56,33 @@ public class ServerConfiguration {
   @Bean
   public int primordialGenerationNumber() {return -1;}
 
+  /*
+   A random pattern fills the whole board. It's generated packed, in parallel, from the seed, so
+   a given seed always makes the same board, and big boards don't take long to seed.
+   */
   @Bean
-  public Pattern getPattern(final CoordinateSystem coordinateSystem) {
-    return pufferfishSpaceshipPattern(coordinateSystem);
-//    return randomPattern(coordinateSystem);
+  public Pattern getPattern(
+      final CoordinateSystem coordinateSystem,
+      @Value("${reactrode.pattern.random:false}") final boolean random,
+      @Value("${reactrode.pattern.seed:1}") final long seed,
+      @Value("${reactrode.pattern.density:0.5}") final double density) {
+    if (random) {
+      return randomPattern(coordinateSystem, seed, density);
+    } else {
+      return pufferfishSpaceshipPattern(coordinateSystem);
+    }
   }
 
+  /*
+   Packed: a random pattern is already a frame, so even a big random board never goes through a
+   cell per position.
+   */
   @Bean
-  public Publisher<Cell> primordialGeneration(
+  public Frame primordialFrame(
       final Pattern pattern,
       final CoordinateSystem coordinateSystem,
       final int primordialGenerationNumber) {
-    return Flux.fromIterable(
-        Patterns.cellsFromBits(pattern, primordialGenerationNumber, coordinateSystem));
+    return Patterns.frameFromBits(pattern, primordialGenerationNumber, coordinateSystem);
   }
 
   private CoordinateSystem mediumCoordinateSystem() {
@@ -53,16 +97,191 @@ public class ServerConfiguration {
     return new CoordinateSystem(4,5);
   }
 
+  /*
+   If there's a checkpoint of a board this size, resume from it. Otherwise start over at the
+   primordial generation.
+   */
+  @Bean
+  public GameOfLifeSystem gameOfLifeSystem(
+      final CoordinateSystem coordinateSystem,
+      final Frame primordialFrame,
+      @Value("${reactrode.checkpoint.file:}") final String checkpointFile) {
+    return GameOfLifeSystem.create(
+        restoreCheckpoint(checkpointFile, coordinateSystem).orElse(primordialFrame));
+  }
+
+  @Bean
+  public Publisher<Cell> allGenerations(final GameOfLifeSystem gameOfLifeSystem) {
+    return gameOfLifeSystem.getAllGenerations();
+  }
+
+  /*
+   In cluster mode another node may compute our frames for us (see ClusterCoordinator).
+   */
+  @Bean
+  public Publisher<Frame> allFrames(final GameOfLifeSystem gameOfLifeSystem,
+                                    final ObjectProvider<ClusterCoordinator> clusterCoordinator) {
+    final ClusterCoordinator coordinator = clusterCoordinator.getIfAvailable();
+    if (coordinator == null) {
+      return gameOfLifeSystem.getAllFrames();
+    }
+    final GenerationHistory history = gameOfLifeSystem.getHistory();
+    return coordinator.getAllFrames().doOnNext(history::record);
+  }
+
+  /*
+   Cluster mode: the shared game's board is split into bands of rows, each stepped by one of the
+   reactrode.cluster.nodes (see ClusterShard), and stitched back together here. This node may be
+   one of those nodes too. Each run starts from the primordial generation (or the checkpoint) so
+   the cluster computes exactly the generations this node would have.
+   */
+  @Bean
+  @ConditionalOnExpression("${reactrode.cluster.coordinator:false}")
+  public ClusterCoordinator clusterCoordinator(
+      final RSocketStrategies strategies,
+      final CoordinateSystem coordinateSystem,
+      final Frame primordialFrame,
+      @Value("${reactrode.checkpoint.file:}") final String checkpointFile,
+      @Value("${reactrode.cluster.nodes:}") final String nodes,
+      @Value("${reactrode.cluster.prefetch:2}") final int prefetch,
+      @Value("${reactrode.generations.shared:true}") final boolean shared) {
+    if (!shared) {
+      throw new IllegalStateException(
+          "A cluster runs one game at a time: set reactrode.generations.shared=true");
+    }
+    return new ClusterCoordinator(ClusterNodes.parse(nodes), strategies,
+        restoreCheckpoint(checkpointFile, coordinateSystem).orElse(primordialFrame), prefetch);
+  }
+
+  @Bean
+  public GenerationHistory generationHistory(final GameOfLifeSystem gameOfLifeSystem) {
+    return gameOfLifeSystem.getHistory();
+  }
+
   @Bean
-  public Publisher<Cell> allGenerations(final CoordinateSystem coordinateSystem, final Publisher<Cell> primordialGeneration) {
-    return new GameOfLife(coordinateSystem, primordialGeneration).getAllGenerations();
+  public SharedGenerations sharedGenerations(
+      final Publisher<Frame> allFrames,
+      @Value("${reactrode.generations.queue-capacity:4}") final int queueCapacity,
+      @Value("${reactrode.generations.keyframe-interval:32}") final int keyframeInterval) {
+    return new SharedGenerations(allFrames, queueCapacity, keyframeInterval);
+  }
+
+  /*
+   Games created by clients, each with its own board and engine. The limits keep a burst of
+   creates, or a request for a huge board, from running the server out of memory (or threads:
+   each engine has one).
+   */
+  @Bean
+  public Games games(
+      final int primordialGenerationNumber,
+      @Value("${reactrode.generations.queue-capacity:4}") final int queueCapacity,
+      @Value("${reactrode.generations.keyframe-interval:32}") final int keyframeInterval,
+      @Value("${reactrode.games.maximum:16}") final int maximumGames,
+      @Value("${reactrode.games.maximum-cells:4194304}") final long maximumCells,
+      @Value("${reactrode.games.idle-timeout-millis:60000}") final long idleTimeoutMillis) {
+    return new Games(primordialGenerationNumber, queueCapacity, keyframeInterval, maximumGames,
+        maximumCells, Duration.ofMillis(idleTimeoutMillis));
+  }
+
+  /*
+   Generations encoded once and sent to every subscriber as slices of the same pooled buffer.
+   Generations older than the newest few are released, as is the oldest whenever we're over budget.
+   */
+  @Bean
+  public EncodedPayloadCache encodedPayloadCache(
+      final RSocketStrategies strategies,
+      @Value("${reactrode.encoding-cache.generations:8}") final int maximumGenerations,
+      @Value("${reactrode.encoding-cache.budget-bytes:67108864}") final long budgetBytes) {
+    return new EncodedPayloadCache(strategies, maximumGenerations, budgetBytes);
+  }
+
+  @Bean
+  public Pacer pacer(
+      @Value("${reactrode.pacing.ticks-per-second:120}") final int ticksPerSecond) {
+    return new Pacer(ticksPerSecond);
+  }
+
+  // not lazy: nothing else depends on the checkpointer, but it has to run
+  @Bean
+  @Lazy(false)
+  @ConditionalOnExpression("!'${reactrode.checkpoint.file:}'.isEmpty()")
+  public Checkpointer checkpointer(
+      final SharedGenerations sharedGenerations,
+      @Value("${reactrode.checkpoint.file}") final String checkpointFile,
+      @Value("${reactrode.checkpoint.interval-millis:10000}") final long intervalMillis) {
+    return new Checkpointer(
+        sharedGenerations, Paths.get(checkpointFile), Duration.ofMillis(intervalMillis));
+  }
+
+  private static Optional<Frame> restoreCheckpoint(final String checkpointFile,
+                                                   final CoordinateSystem coordinateSystem) {
+    if (checkpointFile.isEmpty()) {
+      return Optional.empty();
+    }
+    final Path file = Paths.get(checkpointFile);
+    try {
+      final Optional<Frame> frame = Checkpoint.read(file, coordinateSystem);
+      frame.ifPresent(restored -> logger.info(
+          "resuming at generation {} from {}", restored.getGeneration(), file));
+      return frame;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /*
+   RSocket resumption: a client whose connection drops for less than the session duration
+   reconnects and carries on where it left off. Frames sent meanwhile are replayed from a bounded
+   store per connection. A client gone longer than that can still resume by generation, from the
+   history (see LifeServer.allFramesAfter).
+   */
+  @Bean
+  public ServerRSocketFactoryCustomizer resumption(
+      @Value("${reactrode.resumption.session-duration-millis:30000}")
+      final long sessionDurationMillis,
+      @Value("${reactrode.resumption.store-bytes:4194304}") final int storeBytes) {
+    return factory -> factory
+        .resume()
+        .resumeSessionDuration(Duration.ofMillis(sessionDurationMillis))
+        .resumeStore(token -> new InMemoryResumableFramesStore("server", storeBytes));
+  }
+
+  /*
+   A plain TCP listener alongside the WebSocket one, serving the same routes. Browsers need
+   WebSocket, but Java clients, and server-to-server links like the recorder's, can skip its
+   framing and HTTP upgrade.
+   */
+  @Bean(destroyMethod = "stop")
+  @Lazy(false)
+  @ConditionalOnExpression("${reactrode.tcp.port:7002} > 0")
+  public RSocketServer tcpServer(
+      final RSocketMessageHandler messageHandler,
+      final ObjectProvider<ServerRSocketFactoryCustomizer> customizers,
+      @Value("${reactrode.tcp.port:7002}") final int port) {
+    final NettyRSocketServerFactory factory = new NettyRSocketServerFactory();
+    factory.setTransport(RSocketServer.Transport.TCP);
+    factory.setPort(port);
+    factory.setServerCustomizers(customizers.orderedStream().collect(Collectors.toList()));
+    final RSocketServer server = factory.create(messageHandler.serverAcceptor());
+    server.start();
+    return server;
   }
 
+  /*
+   Clients choose JSON or binary (see BinaryCodecs) with their connection's data mime type.
+   Payloads already encoded (see EncodedPayloadCache) are sent as they are: pooled Netty buffers
+   go out as RSocket payloads without being copied. Binary frames are encoded straight into
+   pooled buffers (see PooledFrameEncoder), ahead of the general binary encoder.
+   */
   @Bean
-  public RSocketStrategiesCustomizer rSocketStrategiesCustomizer() {
+  public RSocketStrategiesCustomizer rSocketStrategiesCustomizer(final ObjectMapper objectMapper) {
     return strategies -> {
+      strategies.dataBufferFactory(new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT));
+      strategies.encoder(new DataBufferEncoder());
       strategies.encoder(CharSequenceEncoder.allMimeTypes());
       strategies.decoder(StringDecoder.allMimeTypes());
+      strategies.encoder(new PooledFrameEncoder());
+      BinaryCodecs.register(strategies, objectMapper);
     };
   }
 }
@@ -0,0 +1,288 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A "hot" source of generations: a single engine feeds every subscriber.
+ *
+ * Without this, every subscriber to a cold {@link com.thoughtpropulsion.reactrode.model.GameOfLife}
+ * publisher runs its own engine, from the primordial generation.
+ *
+ * The engine runs on its own thread and computes a generation only when some subscriber wants
+ * one, so it's paced by the fastest subscriber. Each subscriber has its own bounded queue. When a
+ * subscriber's queue is full, its {@link SlowConsumerPolicy} decides what happens. A new
+ * subscriber starts at the current generation.
+ *
+ * We run the engine once. If it stops (e.g. a cluster node failed) every subscriber gets its
+ * error or completion, including any that subscribe afterwards.
+ */
+public class SharedGenerations {
+
+  public enum SlowConsumerPolicy {
+    // discard queued generations: the subscriber gets the latest one next
+    DROP_TO_LATEST,
+    // queue only the latest generation, full or not, so the subscriber always gets the freshest
+    // one next (e.g. when paced, see Pacer)
+    CONFLATE,
+    // terminate the subscriber's flux with an error
+    DISCONNECT,
+    // discard queued generations, and all generations up to the next keyframe
+    SKIP_TO_KEYFRAME
+  }
+
+  private final Publisher<Frame> source;
+  private final int queueCapacity;
+  private final int keyframeInterval;
+  private final Scheduler engineScheduler;
+
+  private final Set<SharedSubscription> subscriptions = new CopyOnWriteArraySet<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicBoolean requestInFlight = new AtomicBoolean();
+  private final EngineSubscriber engine = new EngineSubscriber();
+
+  private volatile Frame current;
+  // the engine's error or completion, once it has stopped
+  private volatile Signal<Frame> terminal;
+
+  /**
+   * @param source is a cold publisher of frames e.g. {@link com.thoughtpropulsion.reactrode.model.GameOfLife#getAllFrames()}.
+   * We subscribe to it once, when we get our first subscriber.
+   * @param queueCapacity is the number of generations we'll queue for each subscriber
+   * @param keyframeInterval every generation that is a multiple of this is a keyframe
+   */
+  public SharedGenerations(final Publisher<Frame> source,
+                           final int queueCapacity,
+                           final int keyframeInterval) {
+    this.source = source;
+    this.queueCapacity = queueCapacity;
+    this.keyframeInterval = keyframeInterval;
+    this.engineScheduler = Schedulers.newSingle("shared-generations", true);
+  }
+
+  /**
+   * Stop the engine. Spring calls this when the application context closes.
+   */
+  public void close() {
+    engine.dispose();
+    engineScheduler.dispose();
+  }
+
+  public static boolean isKeyframe(final int generation, final int keyframeInterval) {
+    return Math.floorMod(generation, keyframeInterval) == 0;
+  }
+
+  /**
+   * @return the most recent generation computed, or null if the engine hasn't started yet
+   */
+  public Frame getCurrent() {
+    return current;
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  public Flux<Frame> frames(final SlowConsumerPolicy policy) {
+    return Flux.create(sink -> {
+      final SharedSubscription subscription = new SharedSubscription(sink, policy);
+      subscriptions.add(subscription);
+
+      // the engine stopped before we subscribed, else it'll signal us when it does
+      final Signal<Frame> stopped = terminal;
+      if (stopped != null) {
+        subscriptions.remove(subscription);
+        terminate(sink, stopped);
+        return;
+      }
+
+      // start at the current generation (unless the engine has already offered a newer one)
+      final Frame latest = current;
+      if (latest != null) {
+        subscription.offer(latest);
+      }
+
+      sink.onDispose(() -> subscriptions.remove(subscription));
+      sink.onRequest(_n -> {
+        subscription.drain();
+        requestIfHungry();
+      });
+
+      start();
+    });
+  }
+
+  private void start() {
+    if (started.compareAndSet(false, true)) {
+      Flux.from(source)
+          // the engine computes generations on its own thread
+          .subscribeOn(engineScheduler)
+          .subscribe(engine);
+    }
+  }
+
+  private void terminate(final Signal<Frame> signal) {
+    terminal = signal;
+    subscriptions.forEach(subscription -> terminate(subscription.sink, signal));
+  }
+
+  private static void terminate(final FluxSink<Frame> sink, final Signal<Frame> signal) {
+    if (signal.isOnError()) {
+      sink.error(signal.getThrowable());
+    } else {
+      sink.complete();
+    }
+  }
+
+  /*
+   Ask the engine for one more generation if some subscriber wants more than it has queued, and
+   we aren't already waiting on one.
+   */
+  private void requestIfHungry() {
+    if (engine.isReady()
+        && subscriptions.stream().anyMatch(SharedSubscription::isHungry)
+        && requestInFlight.compareAndSet(false, true)) {
+      engine.request(1);
+    }
+  }
+
+  private class EngineSubscriber extends BaseSubscriber<Frame> {
+    private volatile boolean ready;
+
+    boolean isReady() {
+      return ready;
+    }
+
+    @Override
+    protected void hookOnSubscribe(final Subscription subscription) {
+      // unlike the default, request nothing until a subscriber wants something
+      ready = true;
+      requestIfHungry();
+    }
+
+    @Override
+    protected void hookOnNext(final Frame frame) {
+      current = frame;
+      for (final SharedSubscription subscription : subscriptions) {
+        subscription.offer(frame);
+        subscription.drain();
+      }
+      requestInFlight.set(false);
+      requestIfHungry();
+    }
+
+    @Override
+    protected void hookOnError(final Throwable throwable) {
+      terminate(Signal.error(throwable));
+    }
+
+    @Override
+    protected void hookOnComplete() {
+      terminate(Signal.complete());
+    }
+  }
+
+  private class SharedSubscription {
+    final FluxSink<Frame> sink;
+    final SlowConsumerPolicy policy;
+
+    private final Deque<Frame> queue = new ArrayDeque<>(queueCapacity);
+    private final AtomicInteger wip = new AtomicInteger();
+    private Integer lastOffered;
+    private boolean skipping;
+    private boolean disconnected;
+
+    SharedSubscription(final FluxSink<Frame> sink, final SlowConsumerPolicy policy) {
+      this.sink = sink;
+      this.policy = policy;
+    }
+
+    void offer(final Frame frame) {
+      synchronized (this) {
+        // a subscriber created while the engine was publishing could be offered a generation twice
+        if (disconnected || lastOffered != null && frame.getGeneration() <= lastOffered) {
+          return;
+        }
+        lastOffered = frame.getGeneration();
+
+        if (skipping && !isKeyframe(frame.getGeneration(), keyframeInterval)) {
+          return;
+        }
+        skipping = false;
+
+        if (policy == SlowConsumerPolicy.CONFLATE) {
+          queue.clear();
+          queue.add(frame);
+          return;
+        }
+
+        if (queue.size() < queueCapacity) {
+          queue.add(frame);
+          return;
+        }
+
+        switch (policy) {
+          case DROP_TO_LATEST:
+            queue.clear();
+            queue.add(frame);
+            return;
+          case SKIP_TO_KEYFRAME:
+            queue.clear();
+            if (isKeyframe(frame.getGeneration(), keyframeInterval)) {
+              queue.add(frame);
+            } else {
+              skipping = true;
+            }
+            return;
+          case DISCONNECT:
+          default:
+            queue.clear();
+            disconnected = true;
+        }
+      }
+      // we only get here if we just disconnected: error outside the lock
+      sink.error(new IllegalStateException(String.format(
+          "Subscriber fell more than %d generations behind, at generation %d",
+          queueCapacity, frame.getGeneration())));
+    }
+
+    synchronized boolean isHungry() {
+      return !disconnected && sink.requestedFromDownstream() > queue.size();
+    }
+
+    private synchronized Frame poll() {
+      return queue.poll();
+    }
+
+    void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+          final Frame next = poll();
+          if (next == null) {
+            break;
+          }
+          sink.next(next);
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.DROP_TO_LATEST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thoughtpropulsion.reactrode.model.Checkpoint;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class CheckpointerTest {
+
+  private static final Duration INTERVAL = Duration.ofSeconds(10);
+
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(4, 5);
+  private final AtomicInteger computed = new AtomicInteger();
+  private final SharedGenerations sharedGenerations = new SharedGenerations(
+      Flux.range(0, Integer.MAX_VALUE)
+          .map(generation -> Frame.allocate(coordinateSystem, generation))
+          .doOnNext(_frame -> computed.incrementAndGet()),
+      2, 8);
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  @AfterEach
+  void afterEach() {
+    sharedGenerations.close();
+  }
+
+  @Test
+  void idleGameIsNeitherSteppedNorWritten(@TempDir final Path directory) {
+    final Path file = directory.resolve("checkpoint");
+
+    try (final Checkpointer _checkpointer =
+             new Checkpointer(sharedGenerations, file, INTERVAL, scheduler)) {
+      scheduler.advanceTimeBy(INTERVAL.multipliedBy(10));
+    }
+
+    assertThat(computed).hasValue(0);
+    assertThat(file).doesNotExist();
+  }
+
+  @Test
+  void latestGenerationIsWritten(@TempDir final Path directory) throws IOException {
+    final Path file = directory.resolve("checkpoint");
+    final Frame latest = sharedGenerations.frames(DROP_TO_LATEST).take(3).blockLast();
+
+    try (final Checkpointer _checkpointer =
+             new Checkpointer(sharedGenerations, file, INTERVAL, scheduler)) {
+      scheduler.advanceTimeBy(INTERVAL);
+    }
+
+    assertThat(Files.exists(file)).isTrue();
+    assertThat(Checkpoint.read(file, coordinateSystem))
+        .hasValueSatisfying(frame ->
+            assertThat(frame.getGeneration()).isEqualTo(latest.getGeneration()));
+  }
+}
@@ -0,0 +1,89 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameOfLife;
+import com.thoughtpropulsion.reactrode.model.Patterns;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import reactor.core.publisher.Flux;
+
+/*
+ Nodes here are in-process, but they talk to each other, and to the coordinator, over loopback
+ TCP just as separate processes would.
+ */
+class ClusterTest {
+
+  private static final int GENERATIONS = 40;
+
+  private final RSocketStrategies strategies = strategies();
+  private final List<CloseableChannel> servers = new ArrayList<>();
+
+  @AfterEach
+  void afterEach() {
+    servers.forEach(CloseableChannel::dispose);
+  }
+
+  // a single node is its own neighbor on both sides, and two nodes are each other's
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3})
+  void clusterComputesTheSameGenerationsAsOneNode(final int count) {
+    final Frame primordial = Patterns.randomFrame(new CoordinateSystem(100, 60), -1, 3, 0.4);
+    final List<Frame> expected = Flux.from(new GameOfLife(primordial, null).getAllFrames())
+        .take(GENERATIONS)
+        .collectList()
+        .block();
+
+    // nodes read the list when a run starts, by which time every node is in it
+    final List<String> nodes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      nodes.add(start(new ClusterShard(nodes, strategies)));
+    }
+    final List<Frame> actual = new ClusterCoordinator(nodes, strategies, primordial, 2)
+        .getAllFrames()
+        .take(GENERATIONS)
+        .collectList()
+        .block(Duration.ofSeconds(30));
+
+    assertThat(actual).containsExactlyElementsOf(expected);
+  }
+
+  /*
+   A node's TCP listener, routing requests to shard, as the gameserver's would.
+   */
+  private String start(final ClusterShard shard) {
+    final RSocketMessageHandler handler = new RSocketMessageHandler();
+    handler.setHandlers(Collections.singletonList(shard));
+    handler.setRSocketStrategies(strategies);
+    handler.afterPropertiesSet();
+    final CloseableChannel server = RSocketFactory.receive()
+        .frameDecoder(PayloadDecoder.ZERO_COPY)
+        .acceptor(handler.serverAcceptor())
+        .transport(TcpServerTransport.create("localhost", 0))
+        .start()
+        .block();
+    servers.add(server);
+    return "localhost:" + server.address().getPort();
+  }
+
+  private static RSocketStrategies strategies() {
+    final RSocketStrategies.Builder builder = RSocketStrategies.builder();
+    new ServerConfiguration().rSocketStrategiesCustomizer(new ObjectMapper()).customize(builder);
+    return builder.build();
+  }
+}
@@ -0,0 +1,222 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.codec.BinaryEncoder;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.FrameEngine;
+import com.thoughtpropulsion.reactrode.model.Patterns;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class EncodedPayloadCacheTest {
+
+  private static final MimeType BINARY = BinaryCodecs.MIME_TYPE;
+  private static final int MAXIMUM_GENERATIONS = 3;
+  private static final int KEYFRAME_INTERVAL = 32;
+
+  private final AtomicInteger encodings = new AtomicInteger();
+  private RSocketStrategies strategies;
+  private EncodedPayloadCache cache;
+
+  @BeforeEach
+  void beforeEach() {
+    strategies = RSocketStrategies.builder()
+        .encoder(new BinaryEncoder() {
+          @Override
+          public DataBuffer encodeValue(final Object value, final DataBufferFactory bufferFactory,
+                                        final ResolvableType valueType, final MimeType mimeType,
+                                        final Map<String, Object> hints) {
+            encodings.incrementAndGet();
+            return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+          }
+        })
+        .build();
+    cache = new EncodedPayloadCache(strategies, MAXIMUM_GENERATIONS, Long.MAX_VALUE);
+  }
+
+  @AfterEach
+  void afterEach() {
+    cache.close();
+    RecordingLeakDetector.assertNoLeaks();
+  }
+
+  @Test
+  void subscribersShareOneEncoding() {
+    final List<Frame> frames = generations(3);
+
+    final List<DataBuffer> first = frames(frames);
+    final List<DataBuffer> second = frames(frames);
+
+    assertThat(encodings).hasValue(frames.size());
+    for (int i = 0; i < frames.size(); i++) {
+      assertThat(byteBuf(second.get(i)).unwrap()).isSameAs(byteBuf(first.get(i)).unwrap());
+      assertThat(second.get(i)).isEqualTo(first.get(i));
+    }
+    release(first);
+    release(second);
+  }
+
+  @Test
+  void cellsAreSlicesOfOneBufferPerGeneration() {
+    final List<Frame> frames = generations(2);
+
+    final List<DataBuffer> first = cache.encodeCells(Flux.fromIterable(frames), BINARY)
+        .collectList().block();
+    final List<DataBuffer> second = cache.encodeCells(Flux.fromIterable(frames), BINARY)
+        .collectList().block();
+
+    final int cells = 2 * frames.get(0).coordinateSystem.intSize();
+    assertThat(first).hasSize(cells);
+    assertThat(second).isEqualTo(first);
+    assertThat(encodings).hasValue(cells);
+    assertThat(cache.size()).isEqualTo(2);
+    release(first);
+    release(second);
+  }
+
+  @Test
+  void concurrentSubscribersWaitForOneEncoding() {
+    final List<Frame> frames = generations(2);
+    final int subscribers = 8;
+
+    final List<DataBuffer> sent = Flux.range(0, subscribers)
+        .flatMap(_subscriber -> cache.encodeCells(Flux.fromIterable(frames), BINARY)
+            .subscribeOn(Schedulers.parallel()))
+        .collectList().block();
+
+    final int cells = 2 * frames.get(0).coordinateSystem.intSize();
+    assertThat(sent).hasSize(subscribers * cells);
+    assertThat(encodings).hasValue(cells);
+    release(sent);
+  }
+
+  @Test
+  void failedEncodingIsNotCached() {
+    final List<Frame> frames = generations(1);
+    final AtomicBoolean failed = new AtomicBoolean();
+    final Flux<DataBuffer> payloads = cache.encode(Flux.fromIterable(frames), "frame", BINARY,
+        Frame.class, frame -> {
+          if (failed.compareAndSet(false, true)) {
+            throw new IllegalStateException("first encoding fails");
+          }
+          return frame;
+        });
+
+    assertThatThrownBy(payloads::blockLast).isInstanceOf(IllegalStateException.class);
+    final List<DataBuffer> sent = payloads.collectList().block();
+
+    assertThat(sent).hasSize(1);
+    assertThat(cache.size()).isEqualTo(1);
+    release(sent);
+  }
+
+  @Test
+  void cancellingPartwayThroughAGenerationLeaksNothing() {
+    final List<Frame> frames = generations(1);
+
+    final List<DataBuffer> sent = cache.encodeCells(Flux.fromIterable(frames), BINARY)
+        .take(5)
+        .collectList().block();
+
+    assertThat(sent).hasSize(5);
+    final ByteBuf encoded = byteBuf(sent.get(0)).unwrap();
+    release(sent);
+    cache.close();
+    assertThat(encoded.refCnt()).isZero();
+  }
+
+  @Test
+  void subscribersShareDeltasFromTheSameBase() {
+    final List<Frame> frames = generations(3);
+
+    final List<DataBuffer> first = deltas(frames);
+    final List<DataBuffer> second = deltas(frames);
+    final List<DataBuffer> skipping = deltas(frames.subList(1, frames.size()));
+
+    // a keyframe and two deltas, then a keyframe of the second generation
+    assertThat(encodings).hasValue(frames.size() + 1);
+    assertThat(second).isEqualTo(first);
+    assertThat(skipping.get(1)).isEqualTo(first.get(2));
+    release(first);
+    release(second);
+    release(skipping);
+  }
+
+  @Test
+  void oldGenerationsAreEvictedButSentSlicesSurvive() {
+    final List<Frame> frames = generations(MAXIMUM_GENERATIONS + 2);
+
+    final List<DataBuffer> sent = frames(frames);
+
+    assertThat(cache.size()).isEqualTo(MAXIMUM_GENERATIONS);
+    final ByteBuf evicted = byteBuf(sent.get(0)).unwrap();
+    assertThat(evicted.refCnt()).isEqualTo(1);
+    release(sent);
+    assertThat(evicted.refCnt()).isZero();
+  }
+
+  @Test
+  void nothingIsCachedOverBudget() {
+    cache.close();
+    cache = new EncodedPayloadCache(strategies, MAXIMUM_GENERATIONS, 0);
+    final List<Frame> frames = generations(2);
+
+    release(frames(frames));
+    release(frames(frames));
+
+    assertThat(encodings).hasValue(2 * frames.size());
+    assertThat(cache.size()).isZero();
+    assertThat(cache.bytes()).isZero();
+  }
+
+  private List<DataBuffer> frames(final List<Frame> frames) {
+    return cache.encode(Flux.fromIterable(frames), "frame", BINARY, Frame.class, frame -> frame)
+        .collectList().block();
+  }
+
+  private List<DataBuffer> deltas(final List<Frame> frames) {
+    return cache.encodeDeltas(Flux.fromIterable(frames), KEYFRAME_INTERVAL, Compression.DEFLATE,
+        BINARY)
+        .collectList().block();
+  }
+
+  private static List<Frame> generations(final int generations) {
+    final Frame frame = Patterns.randomFrame(new CoordinateSystem(10, 12), 0, 1, 0.3);
+    final List<Frame> frames = new ArrayList<>();
+    for (int generation = 0; generation < generations; generation++) {
+      frames.add(frame.copy());
+      FrameEngine.step(frame);
+    }
+    return frames;
+  }
+
+  private static ByteBuf byteBuf(final DataBuffer buffer) {
+    return ((NettyDataBuffer) buffer).getNativeBuffer();
+  }
+
+  private static void release(final List<DataBuffer> buffers) {
+    buffers.forEach(DataBufferUtils::release);
+  }
+}
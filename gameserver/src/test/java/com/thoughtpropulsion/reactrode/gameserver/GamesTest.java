@@ -0,0 +1,155 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.DROP_TO_LATEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import com.thoughtpropulsion.reactrode.model.GameInfo;
+import com.thoughtpropulsion.reactrode.model.GameSpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class GamesTest {
+
+  private static final int PRIMORDIAL_GENERATION = -1;
+  private static final int MAXIMUM_GAMES = 3;
+  private static final long MAXIMUM_CELLS = 200 * 100;
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  private VirtualTimeScheduler scheduler;
+  private Disposable clock;
+  private Games games;
+
+  @BeforeEach
+  void beforeEach() {
+    scheduler = VirtualTimeScheduler.create();
+    /*
+     The virtual clock only moves while something is scheduled on it: without this, an eviction
+     scheduled after a subscriber has kept the game busy for a while would fire that much early.
+     */
+    clock = Flux.interval(Duration.ofSeconds(1), scheduler).subscribe();
+    games = new Games(
+        PRIMORDIAL_GENERATION, 4, 8, MAXIMUM_GAMES, MAXIMUM_CELLS, IDLE_TIMEOUT, scheduler);
+  }
+
+  @AfterEach
+  void afterEach() {
+    games.close();
+    clock.dispose();
+  }
+
+  @Test
+  void gamesRunIndependently() {
+    final GameInfo small = games.create(GameSpec.random(10, 20, 1, 0.5));
+    final GameInfo large = games.create(GameSpec.random(200, 100, 2, 0.5));
+
+    assertThat(small.id).isNotEqualTo(large.id);
+    assertThat(games.list().collectList().block())
+        .extracting(info -> info.id).containsExactlyInAnyOrder(small.id, large.id);
+
+    StepVerifier.create(games.frames(small.id, DROP_TO_LATEST).take(3))
+        .expectNextMatches(frame -> frame.coordinateSystem.columns == 10
+            && frame.getGeneration() == PRIMORDIAL_GENERATION)
+        .expectNextCount(2)
+        .verifyComplete();
+    StepVerifier.create(games.frames(large.id, DROP_TO_LATEST).take(1))
+        .expectNextMatches(frame -> frame.coordinateSystem.columns == 200
+            && frame.getGeneration() == PRIMORDIAL_GENERATION)
+        .verifyComplete();
+  }
+
+  @Test
+  void idleGameIsEvicted() {
+    final GameInfo game = games.create(GameSpec.random(10, 20, 1, 0.5));
+    final Disposable subscriber = games.frames(game.id, DROP_TO_LATEST).subscribe();
+
+    // not idle while subscribed
+    scheduler.advanceTimeBy(IDLE_TIMEOUT.multipliedBy(2));
+    assertThat(games.list().collectList().block()).hasSize(1);
+
+    // the last subscriber leaves: evicted once the timeout has passed
+    subscriber.dispose();
+    scheduler.advanceTimeBy(IDLE_TIMEOUT.dividedBy(2));
+    assertThat(games.list().collectList().block()).hasSize(1);
+    scheduler.advanceTimeBy(IDLE_TIMEOUT);
+    assertThat(games.list().collectList().block()).isEmpty();
+
+    // a game nobody subscribes to is evicted too
+    games.create(GameSpec.random(10, 20, 1, 0.5));
+    scheduler.advanceTimeBy(IDLE_TIMEOUT);
+    assertThat(games.list().collectList().block()).isEmpty();
+  }
+
+  @Test
+  void stoppingGameCompletesSubscribers() {
+    final GameInfo game = games.create(GameSpec.random(10, 20, 1, 0.5));
+
+    StepVerifier.create(games.frames(game.id, DROP_TO_LATEST))
+        .expectNextCount(1)
+        .then(() -> assertThat(games.stop(game.id)).isPresent())
+        .thenConsumeWhile(frame -> true)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertThat(games.stop(game.id)).isEmpty();
+    StepVerifier.create(games.frames(game.id, DROP_TO_LATEST))
+        .expectError(IllegalArgumentException.class)
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void gamesAreLimited() {
+    for (int i = 0; i < MAXIMUM_GAMES; i++) {
+      games.create(GameSpec.random(10, 20, i, 0.5));
+    }
+
+    assertThatThrownBy(() -> games.create(GameSpec.random(10, 20, 0, 0.5)))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> games.create(GameSpec.random(0, 20, 0, 0.5)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void boardsAreLimited() {
+    assertThatThrownBy(() -> games.create(GameSpec.random(201, 100, 0, 0.5)))
+        .isInstanceOf(IllegalArgumentException.class);
+    // overflows an int
+    assertThatThrownBy(() -> games.create(GameSpec.random(65536, 65536, 0, 0.5)))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // a game that's too big doesn't count towards the maximum
+    for (int i = 0; i < MAXIMUM_GAMES; i++) {
+      games.create(GameSpec.pufferfish(200, 100));
+    }
+  }
+
+  @Test
+  void concurrentCreatesDontExceedTheMaximum() {
+    final int created = Flux.range(0, MAXIMUM_GAMES * 4)
+        .parallel()
+        .runOn(Schedulers.parallel())
+        .map(i -> {
+          try {
+            games.create(GameSpec.random(10, 20, i, 0.5));
+            return 1;
+          } catch (final IllegalStateException e) {
+            return 0;
+          }
+        })
+        .sequential()
+        .reduce(0, Integer::sum)
+        .block(TIMEOUT);
+
+    assertThat(created).isEqualTo(MAXIMUM_GAMES);
+    assertThat(games.list().collectList().block()).hasSize(MAXIMUM_GAMES);
+  }
+}
@@ -0,0 +1,103 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class PacerTest {
+
+  private static final int TICKS_PER_SECOND = 100;
+
+  private VirtualTimeScheduler scheduler;
+  private Pacer pacer;
+
+  @BeforeEach
+  void beforeEach() {
+    scheduler = VirtualTimeScheduler.create();
+    pacer = new Pacer(TICKS_PER_SECOND, scheduler);
+  }
+
+  @Test
+  void releasesAtMostFramesPerSecond() {
+    final List<Long> released = new ArrayList<>();
+
+    StepVerifier.withVirtualTime(
+        () -> pacer.pace(generations(), 10).doOnNext(released::add), () -> scheduler,
+        Long.MAX_VALUE)
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNextCount(10)
+        .thenCancel()
+        .verify();
+
+    // a generation a millisecond, released every 100 milliseconds
+    assertThat(released).isSorted();
+    for (int i = 1; i < released.size(); i++) {
+      assertThat(released.get(i) - released.get(i - 1)).isBetween(99L, 101L);
+    }
+  }
+
+  @Test
+  void slowSubscriberGetsLatest() {
+    StepVerifier.withVirtualTime(() -> pacer.pace(generations(), 10), () -> scheduler, 0)
+        .thenAwait(Duration.ofSeconds(1))
+        .thenRequest(1)
+        .thenAwait(Duration.ofMillis(100))
+        // not the first generation, but the latest at the next release
+        .expectNextMatches(generation -> generation > 1000)
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void sourceIsAskedForOneElementPerRelease() {
+    final AtomicLong requested = new AtomicLong();
+
+    StepVerifier.withVirtualTime(
+        () -> pacer.pace(generations().doOnRequest(requested::addAndGet), 10), () -> scheduler,
+        Long.MAX_VALUE)
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNextCount(10)
+        .thenCancel()
+        .verify();
+
+    assertThat(requested).hasValue(10);
+  }
+
+  @Test
+  void idleSubscriberAsksForNothing() {
+    final AtomicLong requested = new AtomicLong();
+
+    StepVerifier.withVirtualTime(
+        () -> pacer.pace(generations().doOnRequest(requested::addAndGet), 10), () -> scheduler,
+        0)
+        .thenAwait(Duration.ofSeconds(1))
+        .thenCancel()
+        .verify();
+
+    assertThat(requested).hasValue(0);
+  }
+
+  @Test
+  void unpacedSourceIsUntouched() {
+    StepVerifier.create(pacer.pace(Flux.range(0, 5), 0))
+        .expectNext(0, 1, 2, 3, 4)
+        .verifyComplete();
+  }
+
+  /*
+   A generation a millisecond, whether or not anyone asked, conflated like the shared generations
+   are for a subscriber that's behind.
+   */
+  private Flux<Long> generations() {
+    return Flux.interval(Duration.ofMillis(1), scheduler).onBackpressureLatest();
+  }
+}
@@ -0,0 +1,92 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.codec.BinaryDecoder;
+import com.thoughtpropulsion.reactrode.codec.BinaryEncoder;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.Patterns;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+
+class PooledFrameEncoderTest {
+
+  private static final ResolvableType FRAME = ResolvableType.forClass(Frame.class);
+
+  private final PooledFrameEncoder encoder = new PooledFrameEncoder();
+
+  @AfterEach
+  void afterEach() {
+    RecordingLeakDetector.assertNoLeaks();
+  }
+
+  @Test
+  void heapFrameIsCopiedIntoOnePooledDirectBuffer() {
+    final Frame frame = Patterns.randomFrame(new CoordinateSystem(70, 9), 3, 1, 0.4);
+
+    final ByteBuf encoded = encode(frame);
+    try {
+      assertThat(encoded.isDirect()).isTrue();
+      assertThat(encoded.nioBufferCount()).isEqualTo(1);
+      assertThat(decode(encoded)).isEqualTo(frame);
+    } finally {
+      encoded.release();
+    }
+    assertThat(encoded.refCnt()).isZero();
+  }
+
+  @Test
+  void directFrameIsSentBySlice() {
+    final Frame frame = Frame.allocateDirect(new CoordinateSystem(200, 100), 7);
+    frame.setAlive(5, 6, true);
+    frame.setAlive(199, 99, true);
+
+    final ByteBuf encoded = encode(frame);
+    try {
+      // the header, then the frame's own bytes
+      assertThat(encoded.nioBufferCount()).isEqualTo(2);
+      assertThat(encoded.nioBuffers()[1].isDirect()).isTrue();
+      assertThat(encoded.nioBuffers()[1]).isEqualTo(frame.asReadOnlyByteBuffer());
+      assertThat(decode(encoded)).isEqualTo(frame);
+    } finally {
+      encoded.release();
+    }
+    assertThat(encoded.refCnt()).isZero();
+  }
+
+  @Test
+  void encodingIsTheBinaryEncoding() {
+    final Frame frame = Patterns.randomFrame(new CoordinateSystem(64, 3), -1, 2, 0.5);
+    final DataBuffer expected = new BinaryEncoder()
+        .encodeValue(frame, new DefaultDataBufferFactory(), FRAME, BinaryCodecs.MIME_TYPE,
+            Collections.emptyMap());
+
+    final ByteBuf encoded = encode(frame);
+    try {
+      assertThat(encoded.nioBuffer()).isEqualTo(expected.asByteBuffer());
+    } finally {
+      encoded.release();
+    }
+  }
+
+  private ByteBuf encode(final Frame frame) {
+    final DataBuffer encoded = encoder.encodeValue(frame, new DefaultDataBufferFactory(), FRAME,
+        BinaryCodecs.MIME_TYPE, Collections.emptyMap());
+    return ((NettyDataBuffer) encoded).getNativeBuffer();
+  }
+
+  private static Frame decode(final ByteBuf encoded) {
+    final DataBuffer copy = new DefaultDataBufferFactory().wrap(encoded.nioBuffer());
+    return (Frame) new BinaryDecoder().decode(copy, FRAME, BinaryCodecs.MIME_TYPE,
+        Collections.emptyMap());
+  }
+}
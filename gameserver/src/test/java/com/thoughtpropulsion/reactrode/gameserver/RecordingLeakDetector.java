@@ -0,0 +1,51 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+
+/**
+ * Netty's leak detector, recording leaks so a test can fail on them instead of just logging.
+ *
+ * In leak detection mode ({@code gradle test -PleakDetection}) Netty uses this detector, at the
+ * paranoid level, for every buffer. Tests that allocate buffers call {@link #assertNoLeaks()}
+ * when they're done. Otherwise that finds nothing and costs nothing.
+ */
+public class RecordingLeakDetector<T> extends ResourceLeakDetector<T> {
+
+  private static final List<String> leaks = new CopyOnWriteArrayList<>();
+
+  // Netty instantiates this reflectively, with this constructor
+  public RecordingLeakDetector(final Class<?> resourceType, final int samplingInterval) {
+    super(resourceType, samplingInterval);
+  }
+
+  /**
+   * Fail if a buffer was garbage collected without being released.
+   */
+  public static void assertNoLeaks() {
+    // a leak is reported on the next allocation after the leaked buffer is collected
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      System.runFinalization();
+      PooledByteBufAllocator.DEFAULT.directBuffer(1).release();
+    }
+    assertThat(leaks).isEmpty();
+  }
+
+  @Override
+  protected void reportTracedLeak(final String resourceType, final String records) {
+    leaks.add(resourceType + records);
+    super.reportTracedLeak(resourceType, records);
+  }
+
+  @Override
+  protected void reportUntracedLeak(final String resourceType) {
+    leaks.add(resourceType);
+    super.reportUntracedLeak(resourceType);
+  }
+}
@@ -0,0 +1,153 @@
+package com.thoughtpropulsion.reactrode.gameserver;
+
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.CONFLATE;
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.DISCONNECT;
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.DROP_TO_LATEST;
+import static com.thoughtpropulsion.reactrode.gameserver.SharedGenerations.SlowConsumerPolicy.SKIP_TO_KEYFRAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class SharedGenerationsTest {
+
+  private static final int QUEUE_CAPACITY = 2;
+  private static final int KEYFRAME_INTERVAL = 8;
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  private final AtomicInteger engines = new AtomicInteger();
+  private SharedGenerations sharedGenerations;
+
+  @BeforeEach
+  void beforeEach() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(4, 5);
+    // frame contents don't matter here, only generation numbers
+    final Flux<Frame> source = Flux.defer(() -> {
+      engines.incrementAndGet();
+      return Flux.range(0, Integer.MAX_VALUE)
+          .map(generation -> Frame.allocate(coordinateSystem, generation));
+    });
+    sharedGenerations = new SharedGenerations(source, QUEUE_CAPACITY, KEYFRAME_INTERVAL);
+  }
+
+  @AfterEach
+  void afterEach() {
+    sharedGenerations.close();
+  }
+
+  @Test
+  void oneEngineFeedsAllSubscribers() {
+    StepVerifier.create(sharedGenerations.frames(DROP_TO_LATEST).take(10))
+        .expectNextCount(10)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    // a late subscriber starts at the current generation
+    StepVerifier.create(sharedGenerations.frames(DROP_TO_LATEST).take(1))
+        .expectNextMatches(frame -> frame.getGeneration() >= 9)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertThat(engines).hasValue(1);
+  }
+
+  @Test
+  void slowSubscriberDropsToLatest() {
+    StepVerifier.create(sharedGenerations.frames(DROP_TO_LATEST), 1)
+        .expectNextMatches(frame -> frame.getGeneration() == 0)
+        .then(this::runFastSubscriber)
+        .thenRequest(1)
+        .expectNextMatches(frame -> frame.getGeneration() > QUEUE_CAPACITY)
+        .thenCancel()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void conflatedSubscriberGetsTheFreshest() {
+    final AtomicInteger latest = new AtomicInteger();
+    StepVerifier.create(sharedGenerations.frames(CONFLATE), 1)
+        .expectNextMatches(frame -> frame.getGeneration() == 0)
+        // not full when the fast subscriber stops, so DROP_TO_LATEST would still queue an older one
+        .then(() -> latest.set(sharedGenerations.frames(DROP_TO_LATEST)
+            .take(10 * KEYFRAME_INTERVAL + 1)
+            .blockLast(TIMEOUT)
+            .getGeneration()))
+        .thenRequest(1)
+        .expectNextMatches(frame -> frame.getGeneration() == latest.get())
+        .thenCancel()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void slowSubscriberSkipsToKeyframe() {
+    StepVerifier.create(sharedGenerations.frames(SKIP_TO_KEYFRAME), 1)
+        .expectNextMatches(frame -> frame.getGeneration() == 0)
+        .then(this::runFastSubscriber)
+        .thenRequest(1)
+        .expectNextMatches(frame -> frame.getGeneration() % KEYFRAME_INTERVAL == 0
+            && frame.getGeneration() > 0)
+        .thenCancel()
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void slowSubscriberIsDisconnected() {
+    StepVerifier.create(sharedGenerations.frames(DISCONNECT), 1)
+        .expectNextMatches(frame -> frame.getGeneration() == 0)
+        .then(this::runFastSubscriber)
+        .expectError(IllegalStateException.class)
+        .verify(TIMEOUT);
+  }
+
+  @Test
+  void lateSubscriberGetsTheEnginesError() {
+    final SharedGenerations failing = new SharedGenerations(
+        Flux.error(new IllegalStateException("node failed")), QUEUE_CAPACITY, KEYFRAME_INTERVAL);
+    try {
+      StepVerifier.create(failing.frames(DROP_TO_LATEST))
+          .expectErrorMessage("node failed")
+          .verify(TIMEOUT);
+
+      StepVerifier.create(failing.frames(DROP_TO_LATEST))
+          .expectErrorMessage("node failed")
+          .verify(TIMEOUT);
+    } finally {
+      failing.close();
+    }
+  }
+
+  @Test
+  void lateSubscriberGetsTheEnginesCompletion() {
+    final SharedGenerations finite = new SharedGenerations(
+        Flux.range(0, 3).map(generation -> Frame.allocate(new CoordinateSystem(4, 5), generation)),
+        QUEUE_CAPACITY, KEYFRAME_INTERVAL);
+    try {
+      StepVerifier.create(finite.frames(DROP_TO_LATEST))
+          .expectNextCount(3)
+          .expectComplete()
+          .verify(TIMEOUT);
+
+      StepVerifier.create(finite.frames(DROP_TO_LATEST))
+          .expectComplete()
+          .verify(TIMEOUT);
+    } finally {
+      finite.close();
+    }
+  }
+
+  // drive the engine well past a slow subscriber
+  private void runFastSubscriber() {
+    StepVerifier.create(sharedGenerations.frames(DROP_TO_LATEST).take(10 * KEYFRAME_INTERVAL))
+        .expectNextCount(10 * KEYFRAME_INTERVAL)
+        .expectComplete()
+        .verify(TIMEOUT);
+  }
+}
@@ -57,9 +57,9 @@ public class GeodeServerConfigurationAutoEvictionAndCQ {
   }
 
   @Bean("Cells")
-  public PartitionedRegionFactoryBean<Integer, Cell> cellsRegion(final Cache cache) {
+  public PartitionedRegionFactoryBean<Long, Cell> cellsRegion(final Cache cache) {
 
-    PartitionedRegionFactoryBean<Integer, Cell> factory =
+    PartitionedRegionFactoryBean<Long, Cell> factory =
         new PartitionedRegionFactoryBean<>();
 
     factory.setCache(cache);
@@ -0,0 +1,250 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Request-n sized by how fast we consume, in whole generations.
+ *
+ * Reactor's default prefetch asks for the same number of elements whatever they are: a handful
+ * of generations of frames, or a fraction of one generation of cells. Here we keep enough
+ * elements requested (or received but not yet consumed) to cover {@code horizon} at the rate
+ * we've been consuming them, rounded to whole generations and kept between a minimum and a
+ * maximum number of generations. A fast consumer keeps the pipe full, and a slow one doesn't
+ * make the server queue generations it won't get to for a while, nor do we buffer more than the
+ * maximum.
+ *
+ * We learn how many elements there are per generation (e.g. cells per board) as they arrive,
+ * starting from a hint. Until we've seen a whole generation, the elements of the one arriving are
+ * a lower bound on its size, so a stream started with a small hint (e.g. one cell) widens its
+ * window as the first generations arrive rather than trickling them through a window sized for
+ * the hint. {@link #getDemand()} and {@link #getThroughput()} are there to be watched (see
+ * {@link StreamDemand}).
+ */
+public class AdaptiveDemand<T> {
+
+  // how often we re-estimate our throughput
+  private static final long SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  // the weight of the latest sample in the throughput estimate
+  private static final double SMOOTHING = 0.3;
+
+  private final ToIntFunction<? super T> generationOf;
+  private final int minimumGenerations;
+  private final int maximumGenerations;
+  private final double horizonSeconds;
+
+  private volatile int elementsPerGeneration;
+  private volatile double throughput;
+  private volatile long demand;
+
+  public static <T> AdaptiveDemand<T> create(final ToIntFunction<? super T> generationOf,
+                                             final int elementsPerGenerationHint,
+                                             final int minimumGenerations,
+                                             final int maximumGenerations,
+                                             final Duration horizon) {
+    if (elementsPerGenerationHint < 1 || minimumGenerations < 1
+        || maximumGenerations < minimumGenerations || horizon.isNegative()) {
+      throw new IllegalArgumentException(String.format(
+          "Expected a positive generation size hint, 1 <= minimum <= maximum generations and a "
+              + "non-negative horizon but got %d, %d, %d and %s",
+          elementsPerGenerationHint, minimumGenerations, maximumGenerations, horizon));
+    }
+    return new AdaptiveDemand<>(generationOf, elementsPerGenerationHint, minimumGenerations,
+        maximumGenerations, horizon);
+  }
+
+  private AdaptiveDemand(final ToIntFunction<? super T> generationOf,
+                         final int elementsPerGenerationHint, final int minimumGenerations,
+                         final int maximumGenerations, final Duration horizon) {
+    this.generationOf = generationOf;
+    this.minimumGenerations = minimumGenerations;
+    this.maximumGenerations = maximumGenerations;
+    this.horizonSeconds = horizon.toNanos() / 1e9;
+    this.elementsPerGeneration = elementsPerGenerationHint;
+    this.demand = (long) minimumGenerations * elementsPerGenerationHint;
+  }
+
+  /**
+   * {@param source} with its demand managed as described above. Subscribe to one of these at a
+   * time: the measurements are per stream.
+   */
+  public Flux<T> apply(final Publisher<T> source) {
+    return Flux.create(sink -> source.subscribe(new Window(sink)));
+  }
+
+  /**
+   * @return the elements we're trying to keep requested or buffered right now
+   */
+  public long getDemand() {
+    return demand;
+  }
+
+  /**
+   * @return the elements per second we've recently been consuming
+   */
+  public double getThroughput() {
+    return throughput;
+  }
+
+  public int getElementsPerGeneration() {
+    return elementsPerGeneration;
+  }
+
+  /*
+   Whole generations covering the horizon at our throughput, within bounds.
+   */
+  private long target() {
+    final int perGeneration = elementsPerGeneration;
+    final long generations = (long) Math.ceil(throughput * horizonSeconds / perGeneration);
+    demand = Math.min(Math.max(generations, minimumGenerations), maximumGenerations)
+        * perGeneration;
+    return demand;
+  }
+
+  private static long now() {
+    return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+  }
+
+  /*
+   One subscription: requests from upstream, and hands elements downstream as they're asked for.
+   */
+  private class Window extends BaseSubscriber<T> {
+    private final FluxSink<T> sink;
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    // requested from upstream but not yet received, plus received but not yet consumed
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    // only touched while draining
+    private long sampleStart = now();
+    private long consumedSinceSample;
+
+    // only touched in hookOnNext
+    private int generation;
+    private int generationElements;
+    private int boundaries;
+
+    Window(final FluxSink<T> sink) {
+      this.sink = sink;
+      sink.onRequest(_n -> drain());
+      sink.onDispose(this::dispose);
+    }
+
+    @Override
+    protected void hookOnSubscribe(final Subscription subscription) {
+      drain();
+    }
+
+    @Override
+    protected void hookOnNext(final T value) {
+      learnGenerationSize(generationOf.applyAsInt(value));
+      queue.offer(value);
+      drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+      done = true;
+      drain();
+    }
+
+    @Override
+    protected void hookOnError(final Throwable throwable) {
+      error = throwable;
+      done = true;
+      drain();
+    }
+
+    private void learnGenerationSize(final int elementGeneration) {
+      if (boundaries > 0 && elementGeneration == generation) {
+        generationElements++;
+        // until we've seen a whole generation, the one arriving is at least this big
+        if (boundaries <= 2 && generationElements > elementsPerGeneration) {
+          elementsPerGeneration = generationElements;
+        }
+        return;
+      }
+      // the first generation we see may not be whole, but the ones after that are
+      if (boundaries > 1) {
+        elementsPerGeneration = generationElements;
+      }
+      if (boundaries <= 2) {
+        boundaries++;
+      }
+      generation = elementGeneration;
+      generationElements = 1;
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        long requested = sink.requestedFromDownstream();
+        T value;
+        while (requested > 0 && (value = queue.poll()) != null) {
+          inFlight.decrementAndGet();
+          consumedSinceSample++;
+          sink.next(value);
+          requested--;
+        }
+        if (done && queue.isEmpty()) {
+          if (error != null) {
+            sink.error(error);
+          } else {
+            sink.complete();
+          }
+          return;
+        }
+        sample();
+        requestMore();
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void sample() {
+      final long now = now();
+      final long elapsed = now - sampleStart;
+      if (elapsed >= SAMPLE_NANOS) {
+        final double rate = consumedSinceSample * 1e9 / elapsed;
+        throughput = throughput == 0 ? rate : SMOOTHING * rate + (1 - SMOOTHING) * throughput;
+        sampleStart = now;
+        consumedSinceSample = 0;
+      }
+    }
+
+    /*
+     Top up to the target in whole generations, once at least half the target (or a generation,
+     if that's more) is wanting, so we ask in batches rather than for every element consumed.
+     */
+    private void requestMore() {
+      if (done || isDisposed() || upstream() == null) {
+        return;
+      }
+      final long target = target();
+      final int perGeneration = elementsPerGeneration;
+      final long wanting = target - inFlight.get();
+      if (wanting >= Math.max(perGeneration, target / 2)) {
+        final long request = wanting / perGeneration * perGeneration;
+        inFlight.addAndGet(request);
+        request(request);
+      }
+    }
+  }
+}
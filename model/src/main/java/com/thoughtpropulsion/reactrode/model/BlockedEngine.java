@@ -0,0 +1,115 @@
+package com.thoughtpropulsion.reactrode.model;
+
+/**
+ * Computes several generations per pass over the board (temporal blocking).
+ *
+ * {@link FrameEngine} streams the whole board through memory once per generation. When the board
+ * is bigger than the processor's caches, that makes stepping memory-bandwidth bound. Here we
+ * instead divide the board into bands of rows, each small enough to stay in cache, and advance
+ * each band k generations before moving on to the next.
+ *
+ * A cell's state k generations later depends on cells up to k rows away, so each band is loaded
+ * with a halo of k rows above and below it. Every generation the rows we can compute correctly
+ * shrink by one at the top and the bottom (a trapezoid), until after k generations exactly the
+ * band itself is left. Bands span the full width of the board, so columns wrap as usual, and the
+ * halo rows wrap around the torus.
+ *
+ * This is worth it when subscribers only want every kth generation, or when seeking to a
+ * generation far ahead. The cost is recomputing the halo rows: about 2k rows per band per
+ * generation.
+ */
+public class BlockedEngine {
+  private BlockedEngine() {}
+
+  // aim for a band (plus halo, times two for double buffering) to fit comfortably in L2
+  public static final int DEFAULT_BAND_BYTES = 256 * 1024;
+
+  /**
+   * Compute generation {@code source.getGeneration() + generations} of {@param source} into
+   * {@param destination}, which must be the same size. {@param source} is left unchanged.
+   */
+  public static void step(final Frame source, final Frame destination, final int generations) {
+    step(source, destination, generations, bandRows(source, generations));
+  }
+
+  public static void step(final Frame source, final Frame destination, final int generations,
+                          final int bandRows) {
+    final CoordinateSystem coordinateSystem = source.coordinateSystem;
+    if (destination.coordinateSystem.columns != coordinateSystem.columns
+        || destination.coordinateSystem.rows != coordinateSystem.rows) {
+      throw new IllegalArgumentException(String.format(
+          "Can't step a %d x %d frame into a %d x %d one",
+          coordinateSystem.columns, coordinateSystem.rows,
+          destination.coordinateSystem.columns, destination.coordinateSystem.rows));
+    }
+    if (generations < 1 || bandRows < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Expected at least one generation and one row per band but got %d and %d",
+          generations, bandRows));
+    }
+    if (source == destination) {
+      throw new IllegalArgumentException("Source and destination must be different frames");
+    }
+
+    final int rows = coordinateSystem.rows;
+    final int columns = coordinateSystem.columns;
+    final int height = bandRows + 2 * generations;
+    long[][] current = new long[height][source.wordsPerRow];
+    long[][] next = new long[height][source.wordsPerRow];
+
+    for (int bandStart = 0; bandStart < rows; bandStart += bandRows) {
+      final int band = Math.min(bandRows, rows - bandStart);
+      final int bandHeight = band + 2 * generations;
+
+      // row i of the scratch band is board row bandStart - generations + i, on the torus
+      for (int i = 0; i < bandHeight; i++) {
+        source.readRow(Math.floorMod(bandStart - generations + i, rows), current[i]);
+      }
+
+      // after generation g, only rows g through bandHeight - g - 1 are correct
+      for (int g = 1; g <= generations; g++) {
+        for (int i = g; i < bandHeight - g; i++) {
+          FrameEngine.nextRow(current[i - 1], current[i], current[i + 1], next[i], columns);
+        }
+        final long[][] recycled = current;
+        current = next;
+        next = recycled;
+      }
+
+      for (int i = 0; i < band; i++) {
+        destination.writeRow(bandStart + i, current[generations + i]);
+      }
+    }
+    destination.setGeneration(source.getGeneration() + generations);
+  }
+
+  /**
+   * Seek: compute the frame {@param generations} generations after {@param frame}, in passes of
+   * at most {@param generationsPerPass}. {@param frame} is left unchanged.
+   */
+  public static Frame advance(final Frame frame, final int generations,
+                              final int generationsPerPass) {
+    Frame current = frame.copy();
+    Frame next = Frame.allocate(frame.coordinateSystem, frame.getGeneration());
+    int remaining = generations;
+    while (remaining > 0) {
+      final int pass = Math.min(remaining, generationsPerPass);
+      step(current, next, pass);
+      final Frame recycled = current;
+      current = next;
+      next = recycled;
+      remaining -= pass;
+    }
+    return current;
+  }
+
+  /*
+   As many rows as fit in DEFAULT_BAND_BYTES, with two buffers of band plus halo, but never so
+   few that the halo dominates.
+   */
+  static int bandRows(final Frame frame, final int generations) {
+    final int rowBytes = frame.wordsPerRow * Long.BYTES;
+    final int fit = DEFAULT_BAND_BYTES / (2 * rowBytes) - 2 * generations;
+    return Math.max(Math.max(fit, 8 * generations), 1);
+  }
+}
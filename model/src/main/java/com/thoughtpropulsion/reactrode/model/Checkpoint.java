@@ -0,0 +1,97 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Saves a frame (the packed board and its generation number) to a file, and restores it, so that
+ * a restarted server can resume where it left off instead of at the primordial generation.
+ *
+ * A checkpoint file is a small header followed by the frame's bytes, exactly as laid out in
+ * memory (see {@link Frame}). Writing is one gathering write; restoring maps the file and copies
+ * the bytes into a frame, so either way costs about as much as copying the board once.
+ *
+ * A checkpoint is written to a temporary file which then replaces the previous checkpoint
+ * atomically. A crash mid-write leaves the previous checkpoint intact.
+ */
+public class Checkpoint {
+
+  // "LIFE"
+  private static final int MAGIC = 0x4c494645;
+  private static final int VERSION = 1;
+  // magic, version, columns, rows, generation, padded to keep the frame word-aligned
+  static final int HEADER_BYTES = 32;
+
+  private Checkpoint() {}
+
+  public static void write(final Frame frame, final Path file) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(frame.coordinateSystem.columns);
+    header.putInt(frame.coordinateSystem.rows);
+    header.putInt(frame.getGeneration());
+    header.clear();
+
+    final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (final FileChannel channel =
+             FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      final ByteBuffer[] buffers = {header, frame.asReadOnlyByteBuffer()};
+      while (buffers[1].hasRemaining()) {
+        channel.write(buffers);
+      }
+      channel.force(false);
+    }
+    Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+  }
+
+  /**
+   * @return the checkpointed frame, on the heap, or empty if there is no checkpoint at
+   * {@param file}, or it's of a board of a different size than {@param coordinateSystem}
+   * @throws IOException if {@param file} can't be read or isn't a checkpoint
+   */
+  public static Optional<Frame> read(final Path file, final CoordinateSystem coordinateSystem)
+      throws IOException {
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+    try (final FileChannel channel = FileChannel.open(file, READ)) {
+      final long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException(String.format("%s is too short to be a checkpoint", file));
+      }
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+      final int magic = mapped.getInt();
+      final int version = mapped.getInt();
+      if (magic != MAGIC || version != VERSION) {
+        throw new IOException(String.format(
+            "%s is not a version %d checkpoint", file, VERSION));
+      }
+      final int columns = mapped.getInt();
+      final int rows = mapped.getInt();
+      final int generation = mapped.getInt();
+      if (columns != coordinateSystem.columns || rows != coordinateSystem.rows) {
+        return Optional.empty();
+      }
+      if (size < HEADER_BYTES + (long) Frame.byteSize(coordinateSystem)) {
+        throw new IOException(String.format("%s is truncated", file));
+      }
+      mapped.position(HEADER_BYTES);
+      return Optional.of(Frame.wrap(coordinateSystem, generation, mapped).copy());
+    }
+  }
+}
@@ -8,7 +8,7 @@ package com.thoughtpropulsion.reactrode.model;
  * based on its (8) neighboring cells having edges would require special case processing.
  *
  * The coordinates system is used to construct {@link Coordinates} objects and also to calculate
- * integer offsets for them.
+ * (long) integer offsets for them.
  *
  * This abstraction is imperfect. {@link Coordinates}s do not remember their {@link
  * CoordinateSystem}. It is possible to create a {@link Coordinates} via one {@link CoordinateSystem}
@@ -28,33 +28,48 @@ public class CoordinateSystem {
     return Coordinates.create(Math.floorMod(x,columns), Math.floorMod(y,rows), generation);
   }
 
-  public Coordinates createCoordinates(final int offset) {
-    final int generationSize = columns * rows;
-
-    final int generation;
-    if (offset < 0) {
-      generation = (offset - generationSize + 1) / generationSize;
-    } else {
-      generation = offset / generationSize;
+  public Coordinates createCoordinates(final long offset) {
+    final long generationSize = size();
+    final long generation = Math.floorDiv(offset, generationSize);
+    if (generation < Integer.MIN_VALUE || generation > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(String.format(
+          "Offset %d is beyond the last generation of a %d x %d board", offset, columns, rows));
     }
-
-    final int generationStart = generation * generationSize;
-    final int y = (offset - generationStart) / columns;
-    final int rowStart = generationStart + y * columns;
-    final int x = offset - rowStart;
-    return Coordinates.create(x, y, generation);
+    final long cell = offset - generation * generationSize;
+    return Coordinates.create((int) (cell % columns), (int) (cell / columns), (int) generation);
   }
 
-  public int toOffset(final Coordinates coordinates) {
+  /*
+   Offsets are 64-bit. With an int offset, a 100 x 100 board runs out after about 214 thousand
+   generations, and a 400 x 400 board after about 13 thousand. Every generation fits in a long.
+   */
+  public long toOffset(final Coordinates coordinates) {
     return toOffset(coordinates.x, coordinates.y, coordinates.generation);
   }
 
-  public int toOffset(final int x, final int y, final int generation) {
-    return columns * (generation * rows + y) + x;
+  public long toOffset(final int x, final int y, final int generation) {
+    return (long) columns * ((long) generation * rows + y) + x;
+  }
+
+  /*
+   A long: a 50k x 50k board has more cells than an int can count.
+   */
+  public long size() {
+    return (long) columns * rows;
   }
 
-  public int size() {
-    return columns * rows;
+  /**
+   * @return {@link #size()} as an int, for code that holds a cell per position (e.g. in a list)
+   * @throws IllegalArgumentException if the board has more cells than that can hold
+   */
+  public int intSize() {
+    final long size = size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(String.format(
+          "A %d x %d board has %d cells, too many to hold one object per cell",
+          columns, rows, size));
+    }
+    return (int) size;
   }
 
   /*
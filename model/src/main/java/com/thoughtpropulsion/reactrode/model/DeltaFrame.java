@@ -0,0 +1,320 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+/**
+ * A generation as sent over the wire: either a keyframe (the whole packed frame) or a delta (the
+ * packed frame XORed with the frame sent before it), optionally compressed.
+ *
+ * From one generation to the next most cells don't change, so a delta is mostly zero bits, and a
+ * sparse board is mostly zero bits to begin with. Either way the bits compress very well.
+ *
+ * A delta can only be applied to the frame it was computed from: the frame of generation
+ * {@code baseGeneration}. A receiver that doesn't have that frame has missed something and must
+ * resync: ask for a new stream, which starts with a keyframe. See {@link #encode} and
+ * {@link #decode}.
+ */
+public class DeltaFrame {
+
+  public enum Compression {
+    NONE,
+    DEFLATE
+  }
+
+  /**
+   * Signals a delta whose base frame we don't have.
+   */
+  public static class GapException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public GapException(final String message) {
+      super(message);
+    }
+  }
+
+  public final int generation;
+  public final boolean keyframe;
+  // the generation this delta applies to. Meaningless for a keyframe
+  public final int baseGeneration;
+  public final int columns;
+  public final int rows;
+  public final Compression compression;
+  public final byte[] bits;
+
+  public static DeltaFrame keyframe(final Frame frame, final Compression compression) {
+    return new DeltaFrame(frame.getGeneration(), true, frame.getGeneration(),
+        frame.coordinateSystem.columns, frame.coordinateSystem.rows, compression,
+        compress(toBytes(frame, null), compression));
+  }
+
+  public static DeltaFrame delta(final Frame base, final Frame frame,
+                                 final Compression compression) {
+    checkSameSize(base.coordinateSystem, frame.coordinateSystem);
+    return new DeltaFrame(frame.getGeneration(), false, base.getGeneration(),
+        frame.coordinateSystem.columns, frame.coordinateSystem.rows, compression,
+        compress(toBytes(frame, base), compression));
+  }
+
+  public static DeltaFrame create(final int generation, final boolean keyframe,
+                                  final int baseGeneration, final int columns, final int rows,
+                                  final Compression compression, final byte[] bits) {
+    return new DeltaFrame(
+        generation, keyframe, baseGeneration, columns, rows, compression, bits);
+  }
+
+  /**
+   * Send {@param frames} as a keyframe followed by deltas. Generations that are multiples of
+   * {@param keyframeInterval} are sent as keyframes. Frames may skip generations (e.g. for a slow
+   * subscriber) so we also send a keyframe if there hasn't been one for that many frames. Each
+   * delta is relative to the frame sent before it, whatever its generation.
+   */
+  public static Flux<DeltaFrame> encode(final Publisher<Frame> frames,
+                                        final int keyframeInterval,
+                                        final Compression compression) {
+    return encode(frames, keyframeInterval, (base, frame) -> base == null
+        ? keyframe(frame, compression)
+        : delta(base, frame, compression));
+  }
+
+  /**
+   * Like {@link #encode(Publisher, int, Compression)} but {@param encoder} makes each
+   * {@link DeltaFrame} (or whatever stands for it) from the base frame, null for a keyframe, and
+   * the frame. Subscribers sent the same frames pick the same keyframes and bases, so they can
+   * share the encodings.
+   */
+  public static <T> Flux<T> encode(final Publisher<Frame> frames, final int keyframeInterval,
+                                   final BiFunction<Frame, Frame, T> encoder) {
+    if (keyframeInterval < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Keyframe interval must be at least 1 but got %d", keyframeInterval));
+    }
+    return Flux.defer(() -> {
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      final AtomicInteger sinceKeyframe = new AtomicInteger();
+      return Flux.from(frames)
+          .map(frame -> {
+            final Frame base = previous.getAndSet(frame);
+            if (base == null
+                || Math.floorMod(frame.getGeneration(), keyframeInterval) == 0
+                || sinceKeyframe.incrementAndGet() >= keyframeInterval) {
+              sinceKeyframe.set(0);
+              return encoder.apply(null, frame);
+            } else {
+              return encoder.apply(base, frame);
+            }
+          });
+    });
+  }
+
+  /**
+   * Reconstruct frames from {@param deltas}. Signals a {@link GapException} if a delta doesn't
+   * apply to the last frame we reconstructed. Since each subscription starts with a keyframe,
+   * resubscribing (e.g. {@code retry(GapException.class::isInstance)}) resyncs.
+   */
+  public static Flux<Frame> decode(final Publisher<DeltaFrame> deltas) {
+    return Flux.defer(() -> {
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      return Flux.from(deltas)
+          .map(delta -> {
+            final Frame frame = delta.apply(previous.get());
+            previous.set(frame);
+            return frame;
+          });
+    });
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private DeltaFrame() {
+    this(0, true, 0, 0, 0, Compression.NONE, new byte[0]);
+  }
+
+  private DeltaFrame(final int generation, final boolean keyframe, final int baseGeneration,
+                     final int columns, final int rows, final Compression compression,
+                     final byte[] bits) {
+    this.generation = generation;
+    this.keyframe = keyframe;
+    this.baseGeneration = baseGeneration;
+    this.columns = columns;
+    this.rows = rows;
+    this.compression = compression;
+    this.bits = bits;
+  }
+
+  /**
+   * @return true if this can be applied to {@param base}, the last frame we reconstructed (or
+   * null if there's none yet)
+   */
+  public boolean follows(final Frame base) {
+    return keyframe
+        || base != null
+        && base.getGeneration() == baseGeneration
+        && base.coordinateSystem.columns == columns
+        && base.coordinateSystem.rows == rows;
+  }
+
+  /**
+   * @return a new (heap) frame: this keyframe, or this delta applied to {@param base}
+   * @throws GapException if this is a delta that doesn't follow {@param base}
+   */
+  public Frame apply(final Frame base) {
+    if (!follows(base)) {
+      throw new GapException(String.format(
+          "Delta to generation %d applies to generation %d but we have %s",
+          generation, baseGeneration,
+          base == null ? "nothing" : "generation " + base.getGeneration()));
+    }
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    final ByteBuffer bytes = ByteBuffer.wrap(
+        decompress(bits, compression, Frame.byteSize(coordinateSystem)));
+    if (!keyframe) {
+      xor(bytes, base.asReadOnlyByteBuffer());
+    }
+    return Frame.wrap(coordinateSystem, generation, bytes);
+  }
+
+  /*
+   The packed bits of frame, XORed with those of base if there is one, as a new array.
+   */
+  private static byte[] toBytes(final Frame frame, final Frame base) {
+    final ByteBuffer bytes = ByteBuffer.allocate(Frame.byteSize(frame.coordinateSystem));
+    bytes.put(frame.asReadOnlyByteBuffer());
+    bytes.clear();
+    if (base != null) {
+      xor(bytes, base.asReadOnlyByteBuffer());
+    }
+    return bytes.array();
+  }
+
+  private static void xor(final ByteBuffer target, final ByteBuffer source) {
+    final LongBuffer targetWords = target.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    final LongBuffer sourceWords = source.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    for (int i = 0; i < targetWords.limit(); i++) {
+      targetWords.put(i, targetWords.get(i) ^ sourceWords.get(i));
+    }
+  }
+
+  private static byte[] compress(final byte[] bytes, final Compression compression) {
+    switch (compression) {
+      case NONE:
+        return bytes;
+      case DEFLATE:
+        // favor speed: we compress every generation (once per base, when the server caches them)
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+          deflater.setInput(bytes);
+          deflater.finish();
+          final ByteArrayOutputStream compressed =
+              new ByteArrayOutputStream(Math.max(64, bytes.length / 16));
+          final byte[] chunk = new byte[8192];
+          while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+          }
+          return compressed.toByteArray();
+        } finally {
+          deflater.end();
+        }
+      default:
+        throw new IllegalArgumentException(String.format("Unknown compression %s", compression));
+    }
+  }
+
+  private static byte[] decompress(final byte[] bits, final Compression compression,
+                                   final int size) {
+    switch (compression) {
+      case NONE:
+        if (bits.length != size) {
+          throw new IllegalArgumentException(String.format(
+              "Expected %d bytes but got %d", size, bits.length));
+        }
+        // the frame we make may be modified, so it mustn't share our bits
+        return bits.clone();
+      case DEFLATE:
+        final Inflater inflater = new Inflater();
+        try {
+          inflater.setInput(bits);
+          final byte[] bytes = new byte[size];
+          int n = 0;
+          while (n < size && !inflater.finished()) {
+            final int inflated = inflater.inflate(bytes, n, size - n);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+              break;
+            }
+            n += inflated;
+          }
+          if (n != size || !inflater.finished()) {
+            throw new IllegalArgumentException(String.format(
+                "Expected %d bytes to inflate to %d but got %s", bits.length, size,
+                inflater.finished() ? Integer.toString(n) : "more"));
+          }
+          return bytes;
+        } catch (final DataFormatException e) {
+          throw new IllegalArgumentException("Malformed deflated frame", e);
+        } finally {
+          inflater.end();
+        }
+      default:
+        throw new IllegalArgumentException(String.format("Unknown compression %s", compression));
+    }
+  }
+
+  private static void checkSameSize(final CoordinateSystem base,
+                                    final CoordinateSystem coordinateSystem) {
+    if (base.columns != coordinateSystem.columns || base.rows != coordinateSystem.rows) {
+      throw new IllegalArgumentException(String.format(
+          "Can't compute a delta from a %d x %d frame to a %d x %d one",
+          base.columns, base.rows, coordinateSystem.columns, coordinateSystem.rows));
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final DeltaFrame that = (DeltaFrame) o;
+    return generation == that.generation &&
+        keyframe == that.keyframe &&
+        baseGeneration == that.baseGeneration &&
+        columns == that.columns &&
+        rows == that.rows &&
+        compression == that.compression &&
+        Arrays.equals(bits, that.bits);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hash(generation, keyframe, baseGeneration, columns, rows, compression)
+        + Arrays.hashCode(bits);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("DeltaFrame{");
+    sb.append("generation=").append(generation);
+    sb.append(", keyframe=").append(keyframe);
+    sb.append(", baseGeneration=").append(baseGeneration);
+    sb.append(", columns=").append(columns);
+    sb.append(", rows=").append(rows);
+    sb.append(", compression=").append(compression);
+    sb.append(", bytes=").append(bits.length);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,155 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A downsampled generation: the number of live cells in each square block of the board.
+ *
+ * At zoom level n blocks are 2^n cells on a side, so level 0 is the board itself, level 1 counts
+ * 2x2 blocks, level 4 counts 16x16 blocks and so on up to {@link #MAX_LEVEL} (64x64 blocks: a
+ * block never spans more than one word of a packed row). Blocks at the east and south edges of a
+ * board that isn't a multiple of the block size are partial.
+ *
+ * A client drawing a big board on a small canvas asks for the level at which there's about one
+ * block per pixel. What it receives is bounded by its canvas, not by the board.
+ *
+ * Counts are row-major, {@code columns} per row.
+ */
+public class DensityMap {
+
+  public static final int MAX_LEVEL = 6;
+
+  public final int generation;
+  public final int level;
+  public final int columns;
+  public final int rows;
+  public final short[] counts;
+
+  /**
+   * Count the live cells in each block of {@param frame}, straight from the packed bits.
+   */
+  public static DensityMap of(final Frame frame, final int level) {
+    checkLevel(level);
+    final int blockSize = 1 << level;
+    final int blocksPerWord = Long.SIZE / blockSize;
+    final long blockMask = blockSize == Long.SIZE ? -1L : (1L << blockSize) - 1;
+    final CoordinateSystem coordinateSystem = frame.coordinateSystem;
+    final DensityMap densityMap = new DensityMap(frame.getGeneration(), level,
+        blocks(coordinateSystem.columns, level), blocks(coordinateSystem.rows, level));
+
+    final long[] row = new long[frame.wordsPerRow];
+    for (int y = 0; y < coordinateSystem.rows; y++) {
+      frame.readRow(y, row);
+      final int rowStart = (y >> level) * densityMap.columns;
+      for (int w = 0; w < row.length; w++) {
+        final long word = row[w];
+        if (word == 0) {
+          continue;
+        }
+        final int firstBlock = w * blocksPerWord;
+        final int lastBlock = Math.min(firstBlock + blocksPerWord, densityMap.columns);
+        for (int block = firstBlock; block < lastBlock; block++) {
+          final long bits = word >>> ((block - firstBlock) * blockSize) & blockMask;
+          densityMap.counts[rowStart + block] += Long.bitCount(bits);
+        }
+      }
+    }
+    return densityMap;
+  }
+
+  /**
+   * The number of blocks needed to cover {@param cells} cells at {@param level}.
+   */
+  public static int blocks(final int cells, final int level) {
+    return (cells + (1 << level) - 1) >> level;
+  }
+
+  /**
+   * The least detailed level at which a board still has at most {@param maximumBlocks} blocks.
+   * Clients use this to bound what they receive regardless of board size.
+   */
+  public static int levelFitting(final CoordinateSystem coordinateSystem,
+                                 final long maximumBlocks) {
+    for (int level = 0; level < MAX_LEVEL; level++) {
+      if ((long) blocks(coordinateSystem.columns, level) * blocks(coordinateSystem.rows, level)
+          <= maximumBlocks) {
+        return level;
+      }
+    }
+    return MAX_LEVEL;
+  }
+
+  static void checkLevel(final int level) {
+    if (level < 0 || level > MAX_LEVEL) {
+      throw new IllegalArgumentException(String.format(
+          "Zoom level must be between 0 and %d but got %d", MAX_LEVEL, level));
+    }
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private DensityMap() {
+    this(0, 0, 0, 0);
+  }
+
+  private DensityMap(final int generation, final int level, final int columns, final int rows) {
+    this.generation = generation;
+    this.level = level;
+    this.columns = columns;
+    this.rows = rows;
+    this.counts = new short[columns * rows];
+  }
+
+  public int getCount(final int column, final int row) {
+    return counts[row * columns + column];
+  }
+
+  /**
+   * The next level down: each block here sums a 2x2 square of our blocks. Building a pyramid
+   * this way touches each count once instead of each cell once per level.
+   */
+  public DensityMap coarser() {
+    checkLevel(level + 1);
+    final DensityMap coarser =
+        new DensityMap(generation, level + 1, blocks(columns, 1), blocks(rows, 1));
+    for (int row = 0; row < rows; row++) {
+      final int coarserRowStart = (row >> 1) * coarser.columns;
+      for (int column = 0; column < columns; column++) {
+        coarser.counts[coarserRowStart + (column >> 1)] += getCount(column, row);
+      }
+    }
+    return coarser;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final DensityMap that = (DensityMap) o;
+    return generation == that.generation &&
+        level == that.level &&
+        columns == that.columns &&
+        rows == that.rows &&
+        Arrays.equals(counts, that.counts);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hash(generation, level, columns, rows) + Arrays.hashCode(counts);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("DensityMap{");
+    sb.append("generation=").append(generation);
+    sb.append(", level=").append(level);
+    sb.append(", columns=").append(columns);
+    sb.append(", rows=").append(rows);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,420 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A whole generation (frame) of the board, packed one bit per cell.
+ *
+ * Cells are stored row-major. Each row is padded out to a whole number of 64-bit words so that
+ * the engine can process 64 cells at a time. Bit {@code i} of word {@code w} in row {@code y} is
+ * the cell at column {@code 64 * w + i}. Padding bits are always zero.
+ *
+ * The bits live in a {@link ByteBuffer}, which may be on the Java heap, off-heap (direct) or
+ * memory-mapped from a file. Off-heap and file-backed frames let us simulate boards much larger
+ * than we'd want to keep on the heap, and since the bytes are little-endian regardless of
+ * platform, {@link #asReadOnlyByteBuffer()} can be handed straight to a channel or a network
+ * buffer without copying the board back onto the heap.
+ *
+ * A frame is mutable: {@link FrameEngine#step(Frame)} advances it in place. Frames handed to
+ * other threads (e.g. subscribers) should be copies that nobody steps. Copies are on the heap, so
+ * to keep a board that's too big for the heap off it, step one direct or mapped frame in place
+ * with {@link FrameEngine} rather than going through {@link GameOfLife}, which copies every
+ * generation it hands out.
+ */
+public class Frame {
+
+  private static final int BITS_PER_WORD = Long.SIZE;
+
+  public final CoordinateSystem coordinateSystem;
+  public final int wordsPerRow;
+
+  private final ByteBuffer bytes;
+  private final LongBuffer words;
+  private int generation;
+  private GenerationStatistics statistics;
+  private AtomicReferenceArray<DensityMap> densityMaps;
+
+  public static Frame allocate(final CoordinateSystem coordinateSystem, final int generation) {
+    return new Frame(coordinateSystem, generation,
+        ByteBuffer.allocate(byteSize(coordinateSystem)));
+  }
+
+  public static Frame allocateDirect(final CoordinateSystem coordinateSystem,
+                                     final int generation) {
+    return new Frame(coordinateSystem, generation,
+        ByteBuffer.allocateDirect(byteSize(coordinateSystem)));
+  }
+
+  /**
+   * Create a frame backed by a memory-mapped file. If the file already exists, and is large
+   * enough, its contents become the frame's cells. Otherwise the file is grown and the new
+   * cells are all dead.
+   *
+   * The operating system pages the board in and out as we step it, so the board may be larger
+   * than physical memory.
+   */
+  public static Frame map(final CoordinateSystem coordinateSystem, final int generation,
+                          final Path file) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+      // the mapping remains valid after the channel is closed
+      return new Frame(coordinateSystem, generation,
+          channel.map(FileChannel.MapMode.READ_WRITE, 0, byteSize(coordinateSystem)));
+    }
+  }
+
+  /**
+   * Create a frame over existing bytes (e.g. a received network buffer). The bytes, starting at
+   * the buffer's position, must be laid out as described in the class comment.
+   */
+  public static Frame wrap(final CoordinateSystem coordinateSystem, final int generation,
+                           final ByteBuffer bytes) {
+    return new Frame(coordinateSystem, generation, bytes.slice());
+  }
+
+  /**
+   * The number of bytes needed to hold a frame for {@param coordinateSystem}.
+   */
+  public static int byteSize(final CoordinateSystem coordinateSystem) {
+    final long size =
+        (long) coordinateSystem.rows * wordsPerRow(coordinateSystem) * Long.BYTES;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(String.format(
+          "A %d x %d frame needs %d bytes but a buffer can hold at most %d",
+          coordinateSystem.columns, coordinateSystem.rows, size, Integer.MAX_VALUE));
+    }
+    return (int) size;
+  }
+
+  public static int wordsPerRow(final CoordinateSystem coordinateSystem) {
+    return (coordinateSystem.columns + BITS_PER_WORD - 1) / BITS_PER_WORD;
+  }
+
+  /**
+   * Pack a whole generation of cells. The generation is taken from the cells, which must all be
+   * from the same generation (see {@link GameOfLife#enforceGenerationFraming}).
+   */
+  public static Frame fromCells(final Iterable<Cell> cells,
+                                final CoordinateSystem coordinateSystem) {
+    final Iterator<Cell> iterator = cells.iterator();
+    if (!iterator.hasNext()) {
+      throw new IllegalArgumentException("Can't make a frame from an empty generation");
+    }
+    Cell cell = iterator.next();
+    final Frame frame = allocate(coordinateSystem, cell.coordinates.generation);
+    while (true) {
+      if (cell.isAlive) {
+        frame.setAlive(cell.coordinates.x, cell.coordinates.y, true);
+      }
+      if (!iterator.hasNext()) {
+        return frame;
+      }
+      cell = iterator.next();
+    }
+  }
+
+  private Frame(final CoordinateSystem coordinateSystem, final int generation,
+                final ByteBuffer bytes) {
+    this.coordinateSystem = coordinateSystem;
+    this.wordsPerRow = wordsPerRow(coordinateSystem);
+    this.generation = generation;
+    this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+    if (bytes.remaining() < byteSize(coordinateSystem)) {
+      throw new IllegalArgumentException(String.format(
+          "Expected at least %d bytes for a %d x %d frame but got %d",
+          byteSize(coordinateSystem), coordinateSystem.columns, coordinateSystem.rows,
+          bytes.remaining()));
+    }
+    this.words = this.bytes.asLongBuffer();
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  void setGeneration(final int generation) {
+    this.generation = generation;
+  }
+
+  /**
+   * @return statistics for this generation. If the frame was produced by {@link FrameEngine}
+   * these were computed while stepping, otherwise they're calculated now.
+   */
+  public GenerationStatistics getStatistics() {
+    if (statistics == null || statistics.generation != generation) {
+      statistics = GenerationStatistics.of(this);
+    }
+    return statistics;
+  }
+
+  void setStatistics(final GenerationStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * @return live cell counts for blocks at zoom {@param level}. These are computed on demand and
+   * remembered, so subscribers sharing this frame and zoomed to the same level share the work. A
+   * level is built from the next more detailed level if that's been computed already.
+   */
+  public DensityMap getDensityMap(final int level) {
+    DensityMap.checkLevel(level);
+    AtomicReferenceArray<DensityMap> maps = densityMaps;
+    if (maps == null) {
+      // racing readers may each create an array; all that's lost is a little caching
+      densityMaps = maps = new AtomicReferenceArray<>(DensityMap.MAX_LEVEL + 1);
+    }
+    DensityMap densityMap = maps.get(level);
+    if (densityMap == null || densityMap.generation != generation) {
+      final DensityMap finer = level == 0 ? null : maps.get(level - 1);
+      if (finer != null && finer.generation == generation) {
+        densityMap = finer.coarser();
+      } else {
+        densityMap = DensityMap.of(this, level);
+      }
+      maps.set(level, densityMap);
+    }
+    return densityMap;
+  }
+
+  public boolean isDirect() {
+    return bytes.isDirect();
+  }
+
+  public boolean isAlive(final int x, final int y) {
+    final int column = Math.floorMod(x, coordinateSystem.columns);
+    final long word = getWord(Math.floorMod(y, coordinateSystem.rows), column / BITS_PER_WORD);
+    return (word >>> (column % BITS_PER_WORD) & 1L) != 0;
+  }
+
+  public void setAlive(final int x, final int y, final boolean isAlive) {
+    final int column = Math.floorMod(x, coordinateSystem.columns);
+    final int row = Math.floorMod(y, coordinateSystem.rows);
+    final int w = column / BITS_PER_WORD;
+    final long mask = 1L << (column % BITS_PER_WORD);
+    final long word = getWord(row, w);
+    setWord(row, w, isAlive ? word | mask : word & ~mask);
+  }
+
+  /*
+   Any change to the cells invalidates the statistics and density maps. Call this on every write.
+   */
+  private void cellsChanged() {
+    statistics = null;
+    densityMaps = null;
+  }
+
+  public long getWord(final int y, final int w) {
+    return words.get(y * wordsPerRow + w);
+  }
+
+  public void setWord(final int y, final int w, final long word) {
+    words.put(y * wordsPerRow + w, word);
+    cellsChanged();
+  }
+
+  public void readRow(final int y, final long[] destination) {
+    final LongBuffer view = words.duplicate();
+    view.position(y * wordsPerRow);
+    view.get(destination, 0, wordsPerRow);
+  }
+
+  public void writeRow(final int y, final long[] source) {
+    final LongBuffer view = words.duplicate();
+    view.position(y * wordsPerRow);
+    view.put(source, 0, wordsPerRow);
+    cellsChanged();
+  }
+
+  public long population() {
+    long population = 0;
+    final int n = coordinateSystem.rows * wordsPerRow;
+    for (int i = 0; i < n; i++) {
+      population += Long.bitCount(words.get(i));
+    }
+    return population;
+  }
+
+  /**
+   * @return a copy of this frame, on the heap
+   */
+  public Frame copy() {
+    final Frame copy = allocate(coordinateSystem, generation);
+    copyTo(copy);
+    return copy;
+  }
+
+  /**
+   * Copy cells and generation number into {@param destination}, which must be the same size.
+   */
+  public void copyTo(final Frame destination) {
+    if (destination.coordinateSystem.columns != coordinateSystem.columns
+        || destination.coordinateSystem.rows != coordinateSystem.rows) {
+      throw new IllegalArgumentException(String.format(
+          "Can't copy a %d x %d frame to a %d x %d one",
+          coordinateSystem.columns, coordinateSystem.rows,
+          destination.coordinateSystem.columns, destination.coordinateSystem.rows));
+    }
+    destination.bytes.duplicate().put(asReadOnlyByteBuffer());
+    destination.generation = generation;
+    destination.statistics = statistics;
+  }
+
+  /**
+   * A read-only view of the packed cells, positioned at the first byte and little-endian. Since
+   * it's a view, it's as direct (or mapped) as the frame is.
+   */
+  public ByteBuffer asReadOnlyByteBuffer() {
+    final ByteBuffer view = bytes.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    view.position(0);
+    view.limit(byteSize(coordinateSystem));
+    return view;
+  }
+
+  /**
+   * Write the packed cells to {@param channel}, e.g. a file or a socket. For direct and mapped
+   * frames the bytes go straight from our buffer to the channel.
+   */
+  public void writeTo(final WritableByteChannel channel) throws IOException {
+    final ByteBuffer view = asReadOnlyByteBuffer();
+    while (view.hasRemaining()) {
+      channel.write(view);
+    }
+  }
+
+  /**
+   * Unpack this frame into cells, in row-major order.
+   *
+   * @param previous is the frame this one was computed from. Cells alive here, but not in
+   * {@param previous}, are newborn. If {@param previous} is null, every live cell is newborn
+   * (just as in a pattern).
+   */
+  public List<Cell> toCells(final Frame previous) {
+    return toCells(previous, 0, 0, coordinateSystem);
+  }
+
+  /*
+   Unpack into cells whose coordinates are offset by (originX, originY) in coordinateSystem. This
+   is how a slice of a frame (see Viewport) produces cells in board coordinates.
+   */
+  List<Cell> toCells(final Frame previous, final int originX, final int originY,
+                     final CoordinateSystem coordinateSystem) {
+    final int columns = this.coordinateSystem.columns;
+    final int rows = this.coordinateSystem.rows;
+    final List<Cell> cells = new ArrayList<>(this.coordinateSystem.intSize());
+    for (int y = 0; y < rows; y++) {
+      for (int w = 0; w < wordsPerRow; w++) {
+        final long word = getWord(y, w);
+        final long newborn = previous == null ? word : word & ~previous.getWord(y, w);
+        final int firstColumn = w * BITS_PER_WORD;
+        final int lastColumn = Math.min(firstColumn + BITS_PER_WORD, columns);
+        for (int x = firstColumn; x < lastColumn; x++) {
+          final long mask = 1L << (x - firstColumn);
+          final Coordinates coordinates =
+              coordinateSystem.createCoordinates(originX + x, originY + y, generation);
+          if ((word & mask) == 0) {
+            cells.add(Cell.createDead(coordinates));
+          } else {
+            cells.add(Cell.createAlive(coordinates, (newborn & mask) != 0));
+          }
+        }
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Copy the {@param columns} x {@param rows} rectangle whose top-left corner is at ({@param x},
+   * {@param y}) into a new (heap) frame of that size. The rectangle wraps around the edges of the
+   * board.
+   *
+   * Rows are copied a word at a time, shifting to line the rectangle up with the new frame's word
+   * boundaries, so slicing costs about one operation per 64 cells.
+   */
+  public Frame slice(final int x, final int y, final int columns, final int rows) {
+    if (columns < 1 || rows < 1
+        || columns > coordinateSystem.columns || rows > coordinateSystem.rows) {
+      throw new IllegalArgumentException(String.format(
+          "Can't slice %d x %d from a %d x %d frame",
+          columns, rows, coordinateSystem.columns, coordinateSystem.rows));
+    }
+    final Frame slice = allocate(new CoordinateSystem(columns, rows), generation);
+    final int firstColumn = Math.floorMod(x, coordinateSystem.columns);
+    final long[] source = new long[wordsPerRow];
+    final long[] destination = new long[slice.wordsPerRow];
+    for (int row = 0; row < rows; row++) {
+      readRow(Math.floorMod(y + row, coordinateSystem.rows), source);
+      for (int w = 0; w < destination.length; w++) {
+        final int column = w * BITS_PER_WORD;
+        destination[w] = bitsAt(source, coordinateSystem.columns,
+            (firstColumn + column) % coordinateSystem.columns,
+            Math.min(BITS_PER_WORD, columns - column));
+      }
+      slice.writeRow(row, destination);
+    }
+    return slice;
+  }
+
+  /*
+   The count (at most 64) bits of row starting at column start, wrapping around the board's
+   columns. Result bit 0 is the cell at column start.
+   */
+  private static long bitsAt(final long[] row, final int columns, final int start,
+                             final int count) {
+    if (start + count > columns) {
+      final int beforeWrap = columns - start;
+      return bitsAt(row, columns, start, beforeWrap)
+          | bitsAt(row, columns, 0, count - beforeWrap) << beforeWrap;
+    }
+    final int w = start / BITS_PER_WORD;
+    final int shift = start % BITS_PER_WORD;
+    long bits = row[w] >>> shift;
+    if (shift != 0 && w + 1 < row.length) {
+      bits |= row[w + 1] << (BITS_PER_WORD - shift);
+    }
+    return count == BITS_PER_WORD ? bits : bits & ((1L << count) - 1);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final Frame that = (Frame) o;
+    return generation == that.generation &&
+        coordinateSystem.columns == that.coordinateSystem.columns &&
+        coordinateSystem.rows == that.coordinateSystem.rows &&
+        asReadOnlyByteBuffer().equals(that.asReadOnlyByteBuffer());
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * generation + asReadOnlyByteBuffer().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("Frame{");
+    sb.append("generation=").append(generation);
+    sb.append(", columns=").append(coordinateSystem.columns);
+    sb.append(", rows=").append(coordinateSystem.rows);
+    sb.append(", direct=").append(isDirect());
+    sb.append('}');
+    return sb.toString();
+  }
+}
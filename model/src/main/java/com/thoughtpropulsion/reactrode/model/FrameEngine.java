@@ -0,0 +1,209 @@
+package com.thoughtpropulsion.reactrode.model;
+
+/**
+ * Computes successor generations of packed {@link Frame}s, 64 cells at a time.
+ *
+ * Each word of the next generation is computed from the nine words around it (the word itself
+ * and its neighbors to the north, south, east, west etc.) with a handful of bitwise operations:
+ * the eight neighbor counts are summed bit-parallel with carry-save adders. There is no
+ * per-cell work at all.
+ *
+ * Stepping is done in place. Besides the frame itself we need only a few rows of scratch space,
+ * so a board that barely fits in memory (or in a mapped file) can still be stepped.
+ */
+public class FrameEngine {
+  private FrameEngine() {}
+
+  /**
+   * Advance {@param frame} to the next generation, in place.
+   *
+   * @return statistics for the new generation, which are also attached to {@param frame}
+   */
+  public static GenerationStatistics step(final Frame frame) {
+    // on the torus, the row above the first row is the last row, and vice versa
+    final long[] north = new long[frame.wordsPerRow];
+    final long[] south = new long[frame.wordsPerRow];
+    frame.readRow(frame.coordinateSystem.rows - 1, north);
+    frame.readRow(0, south);
+    return step(frame, north, south);
+  }
+
+  /**
+   * Advance {@param frame}, a band of whole rows from a larger board (see {@link Shard}), to the
+   * next generation, in place. {@param northHalo} is the board's row just above the band's first
+   * row and {@param southHalo} the one just below its last row, both as they were in the band's
+   * current generation. Columns wrap around as usual.
+   *
+   * @return statistics for the band's new generation, which are also attached to {@param frame}
+   */
+  public static GenerationStatistics step(final Frame frame, final long[] northHalo,
+                                          final long[] southHalo) {
+    final int rows = frame.coordinateSystem.rows;
+    final int columns = frame.coordinateSystem.columns;
+    final int wordsPerRow = frame.wordsPerRow;
+    if (northHalo.length != wordsPerRow || southHalo.length != wordsPerRow) {
+      throw new IllegalArgumentException(String.format(
+          "Expected halos of %d words but got %d and %d",
+          wordsPerRow, northHalo.length, southHalo.length));
+    }
+
+    /*
+     We overwrite row y once we've computed it, but rows y-1 and y+1 are needed in their original
+     state. So we keep the original of the row above on the side. The halos are copied since we
+     recycle these arrays.
+     */
+    long[] above = northHalo.clone();
+    long[] current = new long[wordsPerRow];
+    long[] below = new long[wordsPerRow];
+    final long[] next = new long[wordsPerRow];
+
+    // statistics are maintained incrementally: we look at every word anyway
+    final GenerationStatistics previous = frame.getStatistics();
+    long births = 0;
+    long deaths = 0;
+    int minY = -1;
+    int maxY = -1;
+    final long[] occupiedColumns = new long[wordsPerRow];
+
+    frame.readRow(0, current);
+
+    for (int y = 0; y < rows; y++) {
+      if (y + 1 < rows) {
+        frame.readRow(y + 1, below);
+      } else {
+        System.arraycopy(southHalo, 0, below, 0, wordsPerRow);
+      }
+
+      nextRow(above, current, below, next, columns);
+      frame.writeRow(y, next);
+
+      boolean isOccupied = false;
+      for (int w = 0; w < wordsPerRow; w++) {
+        births += Long.bitCount(next[w] & ~current[w]);
+        deaths += Long.bitCount(current[w] & ~next[w]);
+        occupiedColumns[w] |= next[w];
+        isOccupied |= next[w] != 0;
+      }
+      if (isOccupied) {
+        if (minY < 0) {
+          minY = y;
+        }
+        maxY = y;
+      }
+
+      final long[] recycled = above;
+      above = current;
+      current = below;
+      below = recycled;
+    }
+
+    final GenerationStatistics statistics = GenerationStatistics.create(
+        frame.getGeneration() + 1,
+        previous.population + births - deaths, births, deaths,
+        GenerationStatistics.minColumn(occupiedColumns), minY,
+        GenerationStatistics.maxColumn(occupiedColumns), maxY);
+
+    frame.setGeneration(statistics.generation);
+    frame.setStatistics(statistics);
+    return statistics;
+  }
+
+  /**
+   * Compute the successor of row {@param current}, whose neighboring rows are {@param above}
+   * and {@param below}, into {@param next}.
+   */
+  static void nextRow(final long[] above, final long[] current, final long[] below,
+                      final long[] next, final int columns) {
+    final int lastWord = next.length - 1;
+    for (int w = 0; w <= lastWord; w++) {
+      next[w] = nextWord(
+          west(above, w, columns), above[w], east(above, w, columns),
+          west(current, w, columns), current[w], east(current, w, columns),
+          west(below, w, columns), below[w], east(below, w, columns));
+    }
+    next[lastWord] &= lastWordMask(columns);
+  }
+
+  /**
+   * Bit i of the result is the cell to the west of bit i of word {@param w}, wrapping around
+   * the torus.
+   */
+  static long west(final long[] row, final int w, final int columns) {
+    final long carry;
+    if (w == 0) {
+      final int lastColumn = columns - 1;
+      carry = row[lastColumn / Long.SIZE] >>> (lastColumn % Long.SIZE) & 1L;
+    } else {
+      carry = row[w - 1] >>> (Long.SIZE - 1);
+    }
+    return row[w] << 1 | carry;
+  }
+
+  /**
+   * Bit i of the result is the cell to the east of bit i of word {@param w}, wrapping around
+   * the torus.
+   */
+  static long east(final long[] row, final int w, final int columns) {
+    final int lastWord = row.length - 1;
+    if (w < lastWord) {
+      return row[w] >>> 1 | row[w + 1] << (Long.SIZE - 1);
+    } else {
+      // padding bits are zero so the only bit we have to supply is the wrapped-around column 0
+      final int lastBit = (columns - 1) % Long.SIZE;
+      return row[w] >>> 1 | (row[0] & 1L) << lastBit;
+    }
+  }
+
+  static long lastWordMask(final int columns) {
+    final int tail = columns % Long.SIZE;
+    return tail == 0 ? -1L : (1L << tail) - 1;
+  }
+
+  /**
+   * Apply the rules of the game to 64 cells at once.
+   */
+  static long nextWord(
+      final long nw, final long n, final long ne,
+      final long w, final long self, final long e,
+      final long sw, final long s, final long se) {
+
+    // first layer of half adders: pair up the eight neighbors
+    final long ones1 = nw ^ n;
+    final long twos1 = nw & n;
+    final long ones2 = ne ^ w;
+    final long twos2 = ne & w;
+    final long ones3 = e ^ sw;
+    final long twos3 = e & sw;
+    final long ones4 = s ^ se;
+    final long twos4 = s & se;
+
+    // second layer: sum the ones, carrying into the twos
+    final long ones12 = ones1 ^ ones2;
+    final long twos5 = ones1 & ones2;
+    final long ones34 = ones3 ^ ones4;
+    final long twos6 = ones3 & ones4;
+    final long ones = ones12 ^ ones34;
+    final long twos7 = ones12 & ones34;
+
+    /*
+     The neighbor count is ones + 2 * (number of twos set). A cell lives if the count is 3, or if
+     it's 2 and the cell is alive already. Either way exactly one of the twos must be set. Track
+     parity and "at least two" across the seven twos.
+     */
+    long parity = twos1;
+    long atLeastTwo = parity & twos2;
+    parity ^= twos2;
+    atLeastTwo |= parity & twos3;
+    parity ^= twos3;
+    atLeastTwo |= parity & twos4;
+    parity ^= twos4;
+    atLeastTwo |= parity & twos5;
+    parity ^= twos5;
+    atLeastTwo |= parity & twos6;
+    parity ^= twos6;
+    atLeastTwo |= parity & twos7;
+    parity ^= twos7;
+
+    return parity & ~atLeastTwo & (ones | self);
+  }
+}
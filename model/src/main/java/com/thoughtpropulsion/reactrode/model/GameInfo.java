@@ -0,0 +1,63 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Objects;
+
+/**
+ * A running game, as listed for clients: its id, how it was created, the latest generation
+ * computed and how many subscribers it has.
+ */
+public class GameInfo {
+  public final String id;
+  public final GameSpec spec;
+  public final int generation;
+  public final int subscribers;
+
+  public static GameInfo create(final String id, final GameSpec spec, final int generation,
+                                final int subscribers) {
+    return new GameInfo(id, spec, generation, subscribers);
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private GameInfo() {
+    this(null, null, 0, 0);
+  }
+
+  private GameInfo(final String id, final GameSpec spec, final int generation,
+                   final int subscribers) {
+    this.id = id;
+    this.spec = spec;
+    this.generation = generation;
+    this.subscribers = subscribers;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final GameInfo that = (GameInfo) o;
+    return generation == that.generation &&
+        subscribers == that.subscribers &&
+        Objects.equals(id, that.id) &&
+        Objects.equals(spec, that.spec);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, spec, generation, subscribers);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("GameInfo{");
+    sb.append("id='").append(id).append('\'');
+    sb.append(", spec=").append(spec);
+    sb.append(", generation=").append(generation);
+    sb.append(", subscribers=").append(subscribers);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -2,12 +2,9 @@ package com.thoughtpropulsion.reactrode.model;
 
 import static com.thoughtpropulsion.reactrode.model.Functional.returning;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -18,32 +15,84 @@ public class GameOfLife {
 
   final CoordinateSystem coordinateSystem;
   private final Publisher<Cell> allGenerations;
+  private final Publisher<Frame> allFrames;
+  private final GenerationHistory history;
 
   public GameOfLife(
       final CoordinateSystem coordinateSystem,
       final Publisher<Cell> primordialGenerationPublisher) {
+    this(coordinateSystem, primordialGenerationPublisher, null);
+  }
+
+  /**
+   * @param history if not null, every generation we compute is recorded here
+   */
+  public GameOfLife(
+      final CoordinateSystem coordinateSystem,
+      final Publisher<Cell> primordialGenerationPublisher,
+      final GenerationHistory history) {
+    this(coordinateSystem,
+        primordialGenerationPublisher,
+        enforceGenerationFraming(
+          Flux.from(primordialGenerationPublisher)
+              .buffer(coordinateSystem.intSize()),
+            coordinateSystem)
+            .map(primordialGeneration -> Frame.fromCells(primordialGeneration, coordinateSystem)),
+        history);
+  }
+
+  /**
+   * Start from a packed frame, e.g. one restored from a {@link Checkpoint}. The game resumes at
+   * the frame's generation. {@param primordialFrame} is copied, not stepped.
+   *
+   * @param history if not null, every generation we compute is recorded here
+   */
+  public GameOfLife(
+      final Frame primordialFrame,
+      final GenerationHistory history) {
+    this(primordialFrame.coordinateSystem,
+        Flux.defer(() -> Flux.fromIterable(primordialFrame.toCells(null))),
+        Mono.fromSupplier(primordialFrame::copy),
+        history);
+  }
+
+  private GameOfLife(
+      final CoordinateSystem coordinateSystem,
+      final Publisher<Cell> primordialGenerationPublisher,
+      final Publisher<Frame> primordialFramePublisher,
+      final GenerationHistory history) {
 
     this.coordinateSystem = coordinateSystem;
+    this.history = history;
+
+    final Flux<Frame> primordialFrames = Flux.from(primordialFramePublisher)
+        .doOnNext(this::record);
 
     final Flux<Cell> futureGenerations =
 
-        enforceGenerationFraming(
-          Flux.from(primordialGenerationPublisher)
-              .buffer(coordinateSystem.size()),
-            coordinateSystem)
+        primordialFrames
 
             // this flatMap converts a single (primordial) generation to many (future) ones
-            .flatMap(primordialGeneration ->
+            .flatMap(primordialFrame ->
                 Flux.generate(
-                    () -> primordialGeneration,
-                    (List<Cell> oldGeneration, SynchronousSink<List<Cell>> sink) ->
+                    () -> primordialFrame,
+                    (Frame oldGeneration, SynchronousSink<List<Cell>> sink) ->
                         returning(
-                            nextGenerationList(oldGeneration),
-                            newGeneration -> sink.next(newGeneration))))
+                            successor(oldGeneration),
+                            newGeneration -> sink.next(newGeneration.toCells(oldGeneration)))))
             // this flatMap expands each generation to its constituent cells
             .flatMap(generation -> Flux.fromIterable(generation));
 
     allGenerations = Flux.concat(primordialGenerationPublisher,futureGenerations);
+
+    allFrames = primordialFrames
+        .flatMap(primordialFrame ->
+            Flux.concat(
+                Mono.just(primordialFrame),
+                Flux.generate(
+                    () -> primordialFrame,
+                    (Frame oldGeneration, SynchronousSink<Frame> sink) ->
+                        returning(successor(oldGeneration), sink::next))));
   }
 
   /*
@@ -100,94 +149,42 @@ public class GameOfLife {
     return allGenerations;
   }
 
-  private List<Cell> nextGenerationList(
-      final List<Cell> oldGeneration) {
-    return nextGenerationStream(oldGeneration).collect(Collectors.toList());
-  }
-
-  private Stream<Cell> nextGenerationStream(
-      final Collection<Cell> previousGeneration) {
-
-    final int generationSize = coordinateSystem.size();
-    final Cell[] board = new Cell[generationSize];
-    int cellCount = 0;
-
-    for (final Cell cell : previousGeneration) {
-      board[getBoardOffset(cell.coordinates)] = cell;
-      cellCount++;
-    }
-
-    // Flux.buffer() can produce a partial buffer so we have to check the count
-    if (cellCount < generationSize)
-      return Stream.empty();
-    else {
-      // defensive coding here: ensure we filled the board
-      for (final Cell cell : board)
-        assert null != cell;
-
-      return previousGeneration
-          .stream()
-          .map(cell -> nextGenerationCell(cell.coordinates, board));
-    }
-  }
-
   /**
-   * Calculate one cell's successor.
-   *
-   * @param c is the cell's coordinates
-   * @return the cell's successor
+   * Every generation, starting with the primordial one, as packed frames. Each frame is a
+   * distinct copy so subscribers may hold on to them.
    */
-  private Cell nextGenerationCell(
-      final Coordinates c,
-      final Cell[] board) {
-    
-    final CoordinateSystem cs = this.coordinateSystem;
-    
-    final Integer liveNeighborsCount = Stream.of(
-        cs.nw(c),
-        cs.n(c),
-        cs.ne(c),
-        cs.w(c),
-        cs.e(c),
-        cs.sw(c),
-        cs.s(c),
-        cs.se(c))
-        .map(coordinate -> wasAliveCount(coordinate, board))
-        .reduce(0, Integer::sum);
-
-    final Coordinates newCoordinates = cs.timeShifted(c, c.generation + 1);
-
-    final boolean wasAlive = wasAlive(c, board);
-
-    if (wasAlive) {
-      if (liveNeighborsCount < 2) {
-        return Cell.createDead(newCoordinates); // underpopulation
-      } else if (liveNeighborsCount > 3) {
-        return Cell.createDead(newCoordinates); // overpopulation
-      } else {
-        return Cell.createAlive(newCoordinates,false); // survival
-      }
-    } else {
-      if (liveNeighborsCount == 3) {
-        return Cell.createAlive(newCoordinates,true); // reproduction
-      } else {
-        return Cell.createDead(newCoordinates); // status quo
-      }
-    }
+  public Publisher<Frame> getAllFrames() {
+    return allFrames;
   }
 
-  private int wasAliveCount(final Coordinates coordinates, final Cell[] board) {
-    return wasAlive(coordinates,board) ? 1 : 0;
+  /**
+   * Unpack frames into cells. A live cell is newborn if it was dead in the previous frame we saw.
+   * If frames were dropped along the way (e.g. for a slow subscriber) that may not be the
+   * previous generation.
+   */
+  public static Flux<Cell> toCells(final Publisher<Frame> frames) {
+    return Flux.defer(() -> {
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      // prefetch just one frame: a frame is already a whole generation's worth of cells
+      return Flux.from(frames)
+          .concatMapIterable(frame -> frame.toCells(previous.getAndSet(frame)), 1);
+    });
   }
 
-  private boolean wasAlive(final Coordinates coordinates, final Cell[] board) {
-    return board[getBoardOffset(coordinates)].isAlive;
+  /*
+   The engine steps frames in place. Since we hand each generation downstream we step a copy, on
+   the heap. Subscribers, the history and the server's caches all hold on to generations for as
+   long as they like, so there's no telling when a frame could be reused (e.g. from a pool of
+   direct frames). Only FrameEngine, stepping one frame in place, keeps a board off the heap.
+   */
+  private Frame successor(final Frame frame) {
+    return returning(returning(frame.copy(), FrameEngine::step), this::record);
   }
 
-  private int getBoardOffset(final Coordinates coordinates) {
-    final Coordinates genZeroCoordinate =
-        coordinateSystem.timeShifted(coordinates, 0);
-    return coordinateSystem.toOffset(genZeroCoordinate) % coordinateSystem.size();
+  private void record(final Frame frame) {
+    if (history != null) {
+      history.record(frame);
+    }
   }
 
 }
@@ -3,8 +3,15 @@ package com.thoughtpropulsion.reactrode.model;
 import org.reactivestreams.Publisher;
 
 public class GameOfLifeSystem {
+
+  // by default, keep a few seconds' worth of generations, but never more than 64MB of them
+  public static final int DEFAULT_HISTORY_GENERATIONS = 256;
+  public static final long DEFAULT_HISTORY_BUDGET_BYTES = 64L * 1024 * 1024;
+
   private final CoordinateSystem coordinateSystem;
+  private final GenerationHistory history;
   private final Publisher<Cell> allGenerations;
+  private final Publisher<Frame> allFrames;
 
   public CoordinateSystem getCoordinateSystem() {
     return coordinateSystem;
@@ -12,22 +19,58 @@ public class GameOfLifeSystem {
 
   public Publisher<Cell> getAllGenerations() { return allGenerations;}
 
-  private GameOfLifeSystem(
-      final Publisher<Cell> primordialGenerationPublisher,
-      final CoordinateSystem coordinateSystem) {
+  public Publisher<Frame> getAllFrames() { return allFrames;}
 
-    this.coordinateSystem = coordinateSystem;
+  /**
+   * Recently computed generations, so that e.g. late-joining subscribers can be served without
+   * recomputing from the primordial generation.
+   */
+  public GenerationHistory getHistory() { return history;}
 
-    final GameOfLife gameOfLife;
+  private GameOfLifeSystem(
+      final GameOfLife gameOfLife,
+      final CoordinateSystem coordinateSystem,
+      final GenerationHistory history) {
 
-    gameOfLife = new GameOfLife(this.coordinateSystem, primordialGenerationPublisher);
+    this.coordinateSystem = coordinateSystem;
+    this.history = history;
 
     allGenerations = gameOfLife.getAllGenerations();
+    allFrames = gameOfLife.getAllFrames();
  }
 
   public static GameOfLifeSystem create(
       final Publisher<Cell> primordialGenerationPublisher,
       final CoordinateSystem coordinateSystem) {
-    return new GameOfLifeSystem(primordialGenerationPublisher, coordinateSystem);
+    return create(primordialGenerationPublisher, coordinateSystem,
+        GenerationHistory.create(
+            coordinateSystem, DEFAULT_HISTORY_GENERATIONS, DEFAULT_HISTORY_BUDGET_BYTES));
+  }
+
+  public static GameOfLifeSystem create(
+      final Publisher<Cell> primordialGenerationPublisher,
+      final CoordinateSystem coordinateSystem,
+      final GenerationHistory history) {
+    return new GameOfLifeSystem(
+        new GameOfLife(coordinateSystem, primordialGenerationPublisher, history),
+        coordinateSystem, history);
+  }
+
+  /**
+   * Resume a game from {@param primordialFrame}, e.g. one restored from a {@link Checkpoint}.
+   */
+  public static GameOfLifeSystem create(final Frame primordialFrame) {
+    final CoordinateSystem coordinateSystem = primordialFrame.coordinateSystem;
+    return create(primordialFrame,
+        GenerationHistory.create(
+            coordinateSystem, DEFAULT_HISTORY_GENERATIONS, DEFAULT_HISTORY_BUDGET_BYTES));
+  }
+
+  public static GameOfLifeSystem create(
+      final Frame primordialFrame,
+      final GenerationHistory history) {
+    return new GameOfLifeSystem(
+        new GameOfLife(primordialFrame, history),
+        primordialFrame.coordinateSystem, history);
   }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Objects;
+
+/**
+ * What a client asks for when it creates a game of its own: the size of the board and the
+ * primordial pattern.
+ */
+public class GameSpec {
+
+  public enum PatternType {
+    // the pufferfish spaceship, in the top left corner
+    PUFFERFISH,
+    // every cell alive with probability density, reproducibly from the seed
+    RANDOM
+  }
+
+  public final int columns;
+  public final int rows;
+  public final PatternType patternType;
+  public final long seed;
+  public final double density;
+
+  public static GameSpec pufferfish(final int columns, final int rows) {
+    return create(columns, rows, PatternType.PUFFERFISH, Patterns.DEFAULT_SEED, 0.5);
+  }
+
+  public static GameSpec random(final int columns, final int rows, final long seed,
+                                final double density) {
+    return create(columns, rows, PatternType.RANDOM, seed, density);
+  }
+
+  public static GameSpec create(final int columns, final int rows, final PatternType patternType,
+                                final long seed, final double density) {
+    return new GameSpec(columns, rows, patternType, seed, density);
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private GameSpec() {
+    this(0, 0, PatternType.PUFFERFISH, Patterns.DEFAULT_SEED, 0.5);
+  }
+
+  private GameSpec(final int columns, final int rows, final PatternType patternType,
+                   final long seed, final double density) {
+    this.columns = columns;
+    this.rows = rows;
+    this.patternType = patternType;
+    this.seed = seed;
+    this.density = density;
+  }
+
+  /**
+   * @throws IllegalArgumentException if this doesn't describe a board we can make
+   */
+  public CoordinateSystem coordinateSystem() {
+    if (columns < 1 || rows < 1 || patternType == null || !(density >= 0 && density <= 1)) {
+      throw new IllegalArgumentException(String.format("Can't make a game from %s", this));
+    }
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    // fail now, rather than when the engine starts, if the board is too big
+    Frame.byteSize(coordinateSystem);
+    return coordinateSystem;
+  }
+
+  /**
+   * @return the primordial generation, packed. A random board is generated packed, so even a big
+   * one never goes through a cell (or a Boolean) per position.
+   */
+  public Frame primordialFrame(final CoordinateSystem coordinateSystem, final int generation) {
+    switch (patternType) {
+      case RANDOM:
+        return Patterns.randomFrame(coordinateSystem, generation, seed, density);
+      case PUFFERFISH:
+      default:
+        return Patterns.frameFromBits(pattern(coordinateSystem), generation, coordinateSystem);
+    }
+  }
+
+  public Pattern pattern(final CoordinateSystem coordinateSystem) {
+    switch (patternType) {
+      case RANDOM:
+        return Patterns.randomPattern(coordinateSystem, seed, density);
+      case PUFFERFISH:
+      default:
+        return Patterns.pufferfishSpaceshipPattern(coordinateSystem);
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final GameSpec that = (GameSpec) o;
+    return columns == that.columns &&
+        rows == that.rows &&
+        patternType == that.patternType &&
+        seed == that.seed &&
+        Double.compare(that.density, density) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(columns, rows, patternType, seed, density);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("GameSpec{");
+    sb.append("columns=").append(columns);
+    sb.append(", rows=").append(rows);
+    sb.append(", patternType=").append(patternType);
+    sb.append(", seed=").append(seed);
+    sb.append(", density=").append(density);
+    sb.append('}');
+    return sb.toString();
+  }
+}
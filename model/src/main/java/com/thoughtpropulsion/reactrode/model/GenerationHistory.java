@@ -0,0 +1,192 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A bounded ring buffer holding the most recent generations, as packed {@link Frame}s.
+ *
+ * Lookup by generation number is O(1): generation {@code g} lives in slot
+ * {@code g mod capacity}, if it lives anywhere.
+ *
+ * There is meant to be a single writer (the engine) and any number of readers. Readers never
+ * take a lock. Each slot is guarded by a {@link StampedLock} used as a sequence lock: a reader
+ * copies the slot optimistically and then validates that the writer didn't overwrite the slot
+ * while it was copying. If it did, the generation the reader wanted has been evicted anyway.
+ *
+ * Frames are held off-heap, so the memory budget doesn't count against the Java heap.
+ */
+public class GenerationHistory {
+
+  /*
+   A reader racing the writer retries this many times before giving up. Since the writer only
+   ever overwrites a slot with a newer generation, a reader that keeps losing the race is asking
+   for a generation that's being evicted.
+   */
+  private static final int READ_ATTEMPTS = 3;
+
+  public final CoordinateSystem coordinateSystem;
+  private final Slot[] slots;
+
+  // generation numbers are ints so we use a long to represent "none recorded yet"
+  private volatile long oldestGeneration = Long.MIN_VALUE;
+  private volatile long latestGeneration = Long.MIN_VALUE;
+
+  /**
+   * Create a history of up to {@param generations} generations, but no more than will fit in
+   * {@param memoryBudgetBytes}.
+   */
+  public static GenerationHistory create(
+      final CoordinateSystem coordinateSystem,
+      final int generations,
+      final long memoryBudgetBytes) {
+    final long capacity = Math.min(generations, memoryBudgetBytes / Frame.byteSize(coordinateSystem));
+    if (capacity < 1) {
+      throw new IllegalArgumentException(String.format(
+          "A budget of %d bytes can't hold even one %d byte generation",
+          memoryBudgetBytes, Frame.byteSize(coordinateSystem)));
+    }
+    return new GenerationHistory(coordinateSystem, (int) capacity);
+  }
+
+  private GenerationHistory(final CoordinateSystem coordinateSystem, final int capacity) {
+    this.coordinateSystem = coordinateSystem;
+    this.slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  public boolean isEmpty() {
+    return latestGeneration == Long.MIN_VALUE;
+  }
+
+  /**
+   * @return the oldest generation still held. Only meaningful if the history is not empty.
+   */
+  public int getOldestGeneration() {
+    return (int) Math.max(oldestGeneration, latestGeneration - slots.length + 1);
+  }
+
+  /**
+   * @return the most recently recorded generation. Only meaningful if the history is not empty.
+   */
+  public int getLatestGeneration() {
+    return (int) latestGeneration;
+  }
+
+  /**
+   * Record a copy of {@param frame}, evicting the oldest generation if the history is full.
+   *
+   * Frames that are not newer than the latest one recorded are ignored, so it's harmless for
+   * e.g. a second engine, started from the same primordial generation, to record too.
+   */
+  public synchronized void record(final Frame frame) {
+    final int generation = frame.getGeneration();
+    if (!isEmpty() && generation <= latestGeneration) {
+      return;
+    }
+
+    final Slot slot = slots[Math.floorMod(generation, slots.length)];
+    final long stamp = slot.lock.writeLock();
+    try {
+      if (slot.frame == null) {
+        slot.frame = Frame.allocateDirect(coordinateSystem, generation);
+      }
+      frame.copyTo(slot.frame);
+      slot.generation = generation;
+    } finally {
+      slot.lock.unlockWrite(stamp);
+    }
+
+    if (isEmpty()) {
+      oldestGeneration = generation;
+    }
+    latestGeneration = generation;
+  }
+
+  /**
+   * Copy {@param generation} into {@param destination}.
+   *
+   * @return true if the generation was found (and copied), false if it isn't in the history
+   */
+  public boolean read(final int generation, final Frame destination) {
+    final Slot slot = slots[Math.floorMod(generation, slots.length)];
+    for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+      final long stamp = slot.lock.tryOptimisticRead();
+      if (stamp == 0) {
+        continue; // the writer holds the slot
+      }
+      final Frame frame = slot.frame;
+      final boolean found = frame != null && slot.generation == generation;
+      if (found) {
+        frame.copyTo(destination);
+      }
+      if (slot.lock.validate(stamp)) {
+        return found;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return a (heap) copy of {@param generation} if it's in the history
+   */
+  public Optional<Frame> get(final int generation) {
+    final Frame destination = Frame.allocate(coordinateSystem, generation);
+    return read(generation, destination) ? Optional.of(destination) : Optional.empty();
+  }
+
+  /**
+   * Resume a subscriber that has seen every generation up to and including {@param after}: the
+   * generations after it that are still held here, then {@param live} ones.
+   *
+   * Whenever a live frame is newer than the next one the subscriber needs, we first fill the gap
+   * from history, so nothing is recomputed. Generations already evicted are skipped. Live frames
+   * the subscriber has already seen are dropped.
+   */
+  public Flux<Frame> replay(final int after, final Publisher<Frame> live) {
+    return Flux.defer(() -> {
+      final AtomicInteger last = new AtomicInteger(after);
+      return Flux.from(live)
+          .concatMap(frame -> Flux.concat(
+              between(last, frame.getGeneration()),
+              Mono.just(frame)
+                  .filter(latest -> latest.getGeneration() > last.get())
+                  .doOnNext(latest -> last.set(latest.getGeneration()))),
+              1);
+    });
+  }
+
+  /*
+   Generations after last and before before, from history, one at a time (frames can be big).
+   */
+  private Flux<Frame> between(final AtomicInteger last, final int before) {
+    return Flux.generate(sink -> {
+      final int next = Math.max(last.get() + 1, getOldestGeneration());
+      final Optional<Frame> frame = next < before ? get(next) : Optional.empty();
+      if (frame.isPresent()) {
+        last.set(next);
+        sink.next(frame.get());
+      } else {
+        sink.complete();
+      }
+    });
+  }
+
+  private static class Slot {
+    final StampedLock lock = new StampedLock();
+    // these are written only under the write lock, and read optimistically
+    Frame frame;
+    int generation;
+  }
+}
@@ -0,0 +1,140 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Objects;
+
+/**
+ * Summary of a single generation: how many cells are alive, how many were born and how many
+ * died since the previous generation, and the bounding box of the live cells.
+ *
+ * {@link FrameEngine} maintains these as a side effect of stepping, so they cost next to nothing.
+ *
+ * The bounding box is in board coordinates and does not account for the toroidal wrap: a pattern
+ * straddling an edge has a bounding box spanning the board. If no cells are alive, the bounding
+ * box coordinates are all -1.
+ */
+public class GenerationStatistics {
+  public final int generation;
+  public final long population;
+  public final long births;
+  public final long deaths;
+  public final int minX;
+  public final int minY;
+  public final int maxX;
+  public final int maxY;
+
+  public static GenerationStatistics create(
+      final int generation,
+      final long population, final long births, final long deaths,
+      final int minX, final int minY, final int maxX, final int maxY) {
+    return new GenerationStatistics(generation, population, births, deaths, minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Calculate statistics for a frame from scratch, e.g. for a primordial generation. Since
+   * there is no previous generation, every live cell counts as a birth (just as every live cell
+   * in a pattern is newborn).
+   */
+  public static GenerationStatistics of(final Frame frame) {
+    final int rows = frame.coordinateSystem.rows;
+    final long[] row = new long[frame.wordsPerRow];
+    final long[] occupiedColumns = new long[frame.wordsPerRow];
+    long population = 0;
+    int minY = -1;
+    int maxY = -1;
+    for (int y = 0; y < rows; y++) {
+      frame.readRow(y, row);
+      boolean isOccupied = false;
+      for (int w = 0; w < row.length; w++) {
+        population += Long.bitCount(row[w]);
+        occupiedColumns[w] |= row[w];
+        isOccupied |= row[w] != 0;
+      }
+      if (isOccupied) {
+        if (minY < 0) {
+          minY = y;
+        }
+        maxY = y;
+      }
+    }
+    return create(frame.getGeneration(), population, population, 0,
+        minColumn(occupiedColumns), minY, maxColumn(occupiedColumns), maxY);
+  }
+
+  // the lowest column with a bit set in any row, or -1 if none
+  static int minColumn(final long[] occupiedColumns) {
+    for (int w = 0; w < occupiedColumns.length; w++) {
+      if (occupiedColumns[w] != 0) {
+        return w * Long.SIZE + Long.numberOfTrailingZeros(occupiedColumns[w]);
+      }
+    }
+    return -1;
+  }
+
+  // the highest column with a bit set in any row, or -1 if none
+  static int maxColumn(final long[] occupiedColumns) {
+    for (int w = occupiedColumns.length - 1; w >= 0; w--) {
+      if (occupiedColumns[w] != 0) {
+        return w * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(occupiedColumns[w]);
+      }
+    }
+    return -1;
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private GenerationStatistics() {
+    this(0, 0, 0, 0, -1, -1, -1, -1);
+  }
+
+  private GenerationStatistics(
+      final int generation,
+      final long population, final long births, final long deaths,
+      final int minX, final int minY, final int maxX, final int maxY) {
+    this.generation = generation;
+    this.population = population;
+    this.births = births;
+    this.deaths = deaths;
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final GenerationStatistics that = (GenerationStatistics) o;
+    return generation == that.generation &&
+        population == that.population &&
+        births == that.births &&
+        deaths == that.deaths &&
+        minX == that.minX &&
+        minY == that.minY &&
+        maxX == that.maxX &&
+        maxY == that.maxY;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(generation, population, births, deaths, minX, minY, maxX, maxY);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("GenerationStatistics{");
+    sb.append("generation=").append(generation);
+    sb.append(", population=").append(population);
+    sb.append(", births=").append(births);
+    sb.append(", deaths=").append(deaths);
+    sb.append(", minX=").append(minX);
+    sb.append(", minY=").append(minY);
+    sb.append(", maxX=").append(maxX);
+    sb.append(", maxY=").append(maxY);
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,120 @@
+package com.thoughtpropulsion.reactrode.model;
+
+/**
+ * Steps a board with whichever engine suits its population: {@link FrameEngine} while the board
+ * is dense, {@link SparseEngine} while it's nearly empty.
+ *
+ * The population is known after every step (for free, from either engine) so we check it every
+ * generation. We switch to the sparse representation when the fraction of live cells falls below
+ * {@code sparseBelow}, and back to the packed one when it rises above {@code denseAbove}. The gap
+ * between the two thresholds (hysteresis) keeps a board whose population hovers around one
+ * threshold from paying for a migration every generation.
+ *
+ * An engine owns its board. Use {@link #toFrame()} to get a copy of the current generation.
+ */
+public class HybridEngine {
+
+  /*
+   A packed step costs a couple dozen operations per 64 cells regardless of population. A sparse
+   step costs nine hash table updates per live cell. On a 1024 x 1024 board they break even at
+   roughly one live cell in a thousand.
+   */
+  public static final double DEFAULT_SPARSE_BELOW = 1.0 / 2048;
+  public static final double DEFAULT_DENSE_ABOVE = 1.0 / 1024;
+
+  public final CoordinateSystem coordinateSystem;
+  private final double sparseBelow;
+  private final double denseAbove;
+
+  // exactly one of these is non-null
+  private Frame frame;
+  private long[] live;
+
+  private int generation;
+  private long population;
+  private int migrations;
+
+  public static HybridEngine create(final Frame initial) {
+    return create(initial, DEFAULT_SPARSE_BELOW, DEFAULT_DENSE_ABOVE);
+  }
+
+  public static HybridEngine create(final Frame initial, final double sparseBelow,
+                                    final double denseAbove) {
+    if (!(sparseBelow >= 0 && sparseBelow <= denseAbove && denseAbove <= 1)) {
+      throw new IllegalArgumentException(String.format(
+          "Expected 0 <= sparseBelow <= denseAbove <= 1 but got %f and %f",
+          sparseBelow, denseAbove));
+    }
+    return new HybridEngine(initial.copy(), sparseBelow, denseAbove);
+  }
+
+  private HybridEngine(final Frame frame, final double sparseBelow, final double denseAbove) {
+    this.coordinateSystem = frame.coordinateSystem;
+    this.sparseBelow = sparseBelow;
+    this.denseAbove = denseAbove;
+    this.frame = frame;
+    this.generation = frame.getGeneration();
+    this.population = frame.getStatistics().population;
+    migrate();
+  }
+
+  /**
+   * Advance to the next generation, then switch representation if the population calls for it.
+   */
+  public void step() {
+    if (isSparse()) {
+      live = SparseEngine.step(live, coordinateSystem);
+      population = live.length;
+      generation++;
+    } else {
+      final GenerationStatistics statistics = FrameEngine.step(frame);
+      population = statistics.population;
+      generation = statistics.generation;
+    }
+    migrate();
+  }
+
+  public boolean isSparse() {
+    return live != null;
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  public long getPopulation() {
+    return population;
+  }
+
+  /**
+   * @return how many times we've switched representations
+   */
+  public int getMigrations() {
+    return migrations;
+  }
+
+  /**
+   * @return a copy of the current generation, on the heap
+   */
+  public Frame toFrame() {
+    if (isSparse()) {
+      return SparseEngine.toFrame(live, coordinateSystem, generation);
+    } else {
+      return frame.copy();
+    }
+  }
+
+  private void migrate() {
+    final double density =
+        population / ((double) coordinateSystem.columns * coordinateSystem.rows);
+    if (isSparse() && density > denseAbove) {
+      frame = SparseEngine.toFrame(live, coordinateSystem, generation);
+      live = null;
+      migrations++;
+    } else if (!isSparse() && density < sparseBelow) {
+      live = SparseEngine.liveCells(frame);
+      frame = null;
+      migrations++;
+    }
+  }
+}
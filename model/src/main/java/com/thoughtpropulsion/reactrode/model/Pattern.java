@@ -1,13 +1,53 @@
 package com.thoughtpropulsion.reactrode.model;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 public class Pattern {
   public final CoordinateSystem coordinateSystem;
   public final Iterable<Boolean> cells;
+  // the same cells, packed, if the pattern was made from a frame. Otherwise null.
+  public final Frame frame;
 
   public Pattern(
       final CoordinateSystem coordinateSystem,
       final Iterable<Boolean> cells) {
+    this(coordinateSystem, cells, null);
+  }
+
+  private Pattern(
+      final CoordinateSystem coordinateSystem,
+      final Iterable<Boolean> cells,
+      final Frame frame) {
     this.coordinateSystem = coordinateSystem;
     this.cells = cells;
+    this.frame = frame;
+  }
+
+  /**
+   * A pattern whose cells are those of {@param frame}. The cells are not copied.
+   */
+  public static Pattern of(final Frame frame) {
+    final CoordinateSystem coordinateSystem = frame.coordinateSystem;
+    final Iterable<Boolean> cells = () -> new Iterator<Boolean>() {
+      private long offset = 0;
+
+      @Override
+      public boolean hasNext() {
+        return offset < coordinateSystem.size();
+      }
+
+      @Override
+      public Boolean next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final int x = (int) (offset % coordinateSystem.columns);
+        final int y = (int) (offset / coordinateSystem.columns);
+        offset++;
+        return frame.isAlive(x, y);
+      }
+    };
+    return new Pattern(coordinateSystem, cells, frame);
   }
 }
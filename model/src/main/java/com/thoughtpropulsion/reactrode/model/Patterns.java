@@ -15,11 +15,21 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Patterns {
 
+  public static final long DEFAULT_SEED = 1L;
+
+  // rows per parallel task when seeding a random frame
+  private static final int ROWS_PER_CHUNK = 64;
+
+  // a density is approximated by a binary fraction with this many bits
+  private static final int DENSITY_BITS = 16;
+
   // pattern form factor may differ from coordinateSystem but it must not be larger
   public static Iterable<Cell> cellsFromBits(final Pattern pattern, final int generation,
                                              final CoordinateSystem coordinateSystem) {
@@ -29,8 +39,15 @@ public class Patterns {
     final int rowOffset = Math.round((rows - pattern.coordinateSystem.rows)/2);
     assert(colOffset >= 0);
     assert(rowOffset >= 0);
+    if (pattern.frame != null
+        && pattern.coordinateSystem.columns == columns && pattern.coordinateSystem.rows == rows) {
+      // a packed pattern that fills the board unpacks without going through Booleans
+      final Frame frame = pattern.frame.copy();
+      frame.setGeneration(generation);
+      return frame.toCells(null);
+    }
     final Iterator<Boolean> patternIterator = pattern.cells.iterator();
-    final Collection<Cell> cells = new ArrayList<>(columns * rows);
+    final Collection<Cell> cells = new ArrayList<>(coordinateSystem.intSize());
     for (int row = 0; row < rows; row++) {
       for (int col = 0; col < columns; col++) {
         final Cell newCell;
@@ -54,13 +71,44 @@ public class Patterns {
 
   }
 
+  /**
+   * Like {@link #cellsFromBits(Pattern, int, CoordinateSystem)} but packed: the pattern centered
+   * on a new frame, without making a cell for every position on the board.
+   */
+  public static Frame frameFromBits(final Pattern pattern, final int generation,
+                                    final CoordinateSystem coordinateSystem) {
+    final int colOffset = (coordinateSystem.columns - pattern.coordinateSystem.columns) / 2;
+    final int rowOffset = (coordinateSystem.rows - pattern.coordinateSystem.rows) / 2;
+    if (colOffset < 0 || rowOffset < 0) {
+      throw new IllegalArgumentException(String.format(
+          "A %d x %d pattern doesn't fit on a %d x %d board",
+          pattern.coordinateSystem.columns, pattern.coordinateSystem.rows,
+          coordinateSystem.columns, coordinateSystem.rows));
+    }
+    if (pattern.frame != null && colOffset == 0 && rowOffset == 0) {
+      final Frame frame = pattern.frame.copy();
+      frame.setGeneration(generation);
+      return frame;
+    }
+    final Frame frame = Frame.allocate(coordinateSystem, generation);
+    final Iterator<Boolean> patternIterator = pattern.cells.iterator();
+    for (int row = 0; row < pattern.coordinateSystem.rows; row++) {
+      for (int col = 0; col < pattern.coordinateSystem.columns; col++) {
+        if (patternIterator.next()) {
+          frame.setAlive(colOffset + col, rowOffset + row, true);
+        }
+      }
+    }
+    return frame;
+  }
+
   // Call this if bits has same form factor as coordinateSystem
   public static Iterable<Cell> cellsFromBits(final List<Boolean> bits, final int generation,
                                              final CoordinateSystem coordinateSystem) {
     final int columns = coordinateSystem.columns;
     final int rows = coordinateSystem.rows;
 
-    final Collection<Cell> cells = new ArrayList<>(columns * rows);
+    final Collection<Cell> cells = new ArrayList<>(coordinateSystem.intSize());
     for (int y = 0; y < rows; y++) {
       for (int x = 0; x < columns; x++) {
         final Boolean isAlive = bits.get(y * columns + x);
@@ -83,7 +131,76 @@ public class Patterns {
   }
 
   public static Pattern randomPattern(final CoordinateSystem coordinateSystem) {
-    return new Pattern(coordinateSystem, randomList(coordinateSystem));
+    return randomPattern(coordinateSystem, DEFAULT_SEED, 0.5);
+  }
+
+  public static Pattern randomPattern(final CoordinateSystem coordinateSystem, final long seed,
+                                      final double density) {
+    return Pattern.of(randomFrame(coordinateSystem, 0, seed, density));
+  }
+
+  /**
+   * A random frame in which each cell is alive with probability {@param density}.
+   *
+   * Unlike {@link #randomList(CoordinateSystem)} this never boxes a cell: words are filled 64
+   * cells at a time from a {@link SplittableRandom}, and chunks of rows are filled in parallel.
+   * Each chunk gets its own generator, split off the one seeded with {@param seed} in chunk
+   * order, so the frame is the same for a given seed no matter how the chunks are scheduled.
+   */
+  public static Frame randomFrame(final CoordinateSystem coordinateSystem, final int generation,
+                                  final long seed, final double density) {
+    if (!(density >= 0 && density <= 1)) {
+      throw new IllegalArgumentException(String.format(
+          "Density must be between 0 and 1 but got %f", density));
+    }
+    final Frame frame = Frame.allocate(coordinateSystem, generation);
+    final int rows = coordinateSystem.rows;
+    final int chunks = (rows + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK;
+
+    final SplittableRandom root = new SplittableRandom(seed);
+    final SplittableRandom[] randoms = new SplittableRandom[chunks];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      randoms[chunk] = root.split();
+    }
+
+    final long fraction = Math.round(density * (1L << DENSITY_BITS));
+    final long lastWordMask = FrameEngine.lastWordMask(coordinateSystem.columns);
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      final SplittableRandom random = randoms[chunk];
+      final long[] row = new long[frame.wordsPerRow];
+      final int lastRow = Math.min(rows, (chunk + 1) * ROWS_PER_CHUNK);
+      for (int y = chunk * ROWS_PER_CHUNK; y < lastRow; y++) {
+        for (int w = 0; w < row.length; w++) {
+          row[w] = randomWord(random, fraction);
+        }
+        row[row.length - 1] &= lastWordMask;
+        frame.writeRow(y, row);
+      }
+    });
+    return frame;
+  }
+
+  /*
+   64 random bits, each set with probability fraction / 2^DENSITY_BITS. Working from the least
+   significant bit of the fraction up, OR-ing in a random word adds 1/2 to the probability that a
+   bit is set, and AND-ing halves it. So at most DENSITY_BITS random words make any density, and
+   density 0.5 takes just one.
+   */
+  private static long randomWord(final SplittableRandom random, final long fraction) {
+    if (fraction <= 0) {
+      return 0;
+    } else if (fraction >= 1L << DENSITY_BITS) {
+      return -1L;
+    }
+    long word = 0;
+    for (int bit = Long.numberOfTrailingZeros(fraction); bit < DENSITY_BITS; bit++) {
+      if ((fraction >>> bit & 1L) != 0) {
+        word |= random.nextLong();
+      } else {
+        word &= random.nextLong();
+      }
+    }
+    return word;
   }
 
   public static List<Boolean> randomList(final CoordinateSystem coordinateSystem) {
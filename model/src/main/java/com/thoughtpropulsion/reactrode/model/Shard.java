@@ -0,0 +1,185 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One of several bands of whole rows that together make up a board, so that the board can be
+ * stepped by several engines (e.g. on several machines) at once.
+ *
+ * A band can't be stepped on its own: cells in its first and last rows have neighbors in the
+ * bands to the north and south. Each step needs a halo: the row just north of the band and the
+ * row just south of it, from the neighboring bands' current generation. Bands span the board's
+ * full width, so columns wrap around within a band as usual and the corner cells come along with
+ * the halo rows. The bands wrap around too: the first band's northern neighbor is the last band.
+ *
+ * Stepping every band with its halos, and stitching the bands back together, gives exactly the
+ * generation {@link FrameEngine#step(Frame)} would have computed for the whole board.
+ */
+public class Shard {
+
+  public enum Side {
+    NORTH,
+    SOUTH
+  }
+
+  public final CoordinateSystem board;
+  public final int index;
+  public final int count;
+  public final int firstRow;
+  public final int rows;
+
+  /**
+   * The {@param index}th of {@param count} bands of {@param board}, from north to south. Rows are
+   * shared out as evenly as they can be.
+   */
+  public static Shard create(final CoordinateSystem board, final int count, final int index) {
+    if (count < 1 || count > board.rows || index < 0 || index >= count) {
+      throw new IllegalArgumentException(String.format(
+          "Can't make band %d of %d from a board with %d rows", index, count, board.rows));
+    }
+    final int firstRow = firstRow(board, count, index);
+    return new Shard(board, count, index, firstRow, firstRow(board, count, index + 1) - firstRow);
+  }
+
+  /**
+   * All {@param count} bands of {@param board}, from north to south.
+   */
+  public static List<Shard> partition(final CoordinateSystem board, final int count) {
+    final List<Shard> shards = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      shards.add(create(board, count, index));
+    }
+    return shards;
+  }
+
+  private static int firstRow(final CoordinateSystem board, final int count, final int index) {
+    return (int) ((long) index * board.rows / count);
+  }
+
+  private Shard(final CoordinateSystem board, final int count, final int index,
+                final int firstRow, final int rows) {
+    this.board = board;
+    this.count = count;
+    this.index = index;
+    this.firstRow = firstRow;
+    this.rows = rows;
+  }
+
+  /**
+   * @return the index of the band to the {@param side} of this one
+   */
+  public int neighbor(final Side side) {
+    return Math.floorMod(side == Side.NORTH ? index - 1 : index + 1, count);
+  }
+
+  /**
+   * Our band of {@param frame}, a whole board, as a (heap) frame of its own.
+   */
+  public Frame band(final Frame frame) {
+    checkBoard(frame.coordinateSystem);
+    return frame.slice(0, firstRow, board.columns, rows);
+  }
+
+  /**
+   * The row on the {@param side} edge of {@param band}, as a one-row frame: the halo on the
+   * opposite side of the neighbor on that side.
+   */
+  public static Frame edge(final Frame band, final Side side) {
+    final int row = side == Side.NORTH ? 0 : band.coordinateSystem.rows - 1;
+    return band.slice(0, row, band.coordinateSystem.columns, 1);
+  }
+
+  /**
+   * The successor of {@param band}, given its halos: the southern edge of the band to the north
+   * and the northern edge of the band to the south, from the same generation as {@param band}.
+   * {@param band} is copied, not stepped.
+   */
+  public static Frame step(final Frame band, final Frame northHalo, final Frame southHalo) {
+    if (northHalo.getGeneration() != band.getGeneration()
+        || southHalo.getGeneration() != band.getGeneration()) {
+      throw new IllegalArgumentException(String.format(
+          "Can't step generation %d of a band with halos from generations %d and %d",
+          band.getGeneration(), northHalo.getGeneration(), southHalo.getGeneration()));
+    }
+    final Frame successor = band.copy();
+    FrameEngine.step(successor, row(northHalo), row(southHalo));
+    return successor;
+  }
+
+  private static long[] row(final Frame halo) {
+    final long[] row = new long[halo.wordsPerRow];
+    halo.readRow(0, row);
+    return row;
+  }
+
+  /**
+   * Put {@param bands}, one per shard of {@param shards} and all from the same generation, back
+   * together into a whole (heap) frame.
+   */
+  public static Frame stitch(final List<Shard> shards, final List<Frame> bands) {
+    if (shards.isEmpty() || shards.size() != bands.size()) {
+      throw new IllegalArgumentException(String.format(
+          "Expected a band for each of %d shards but got %d", shards.size(), bands.size()));
+    }
+    final int generation = bands.get(0).getGeneration();
+    final Frame frame = Frame.allocate(shards.get(0).board, generation);
+    final long[] row = new long[frame.wordsPerRow];
+    for (int i = 0; i < shards.size(); i++) {
+      final Shard shard = shards.get(i);
+      final Frame band = bands.get(i);
+      shard.checkBoard(frame.coordinateSystem);
+      if (band.getGeneration() != generation
+          || band.coordinateSystem.columns != shard.board.columns
+          || band.coordinateSystem.rows != shard.rows) {
+        throw new IllegalArgumentException(String.format(
+            "Expected generation %d of %s but got %s", generation, shard, band));
+      }
+      for (int y = 0; y < shard.rows; y++) {
+        band.readRow(y, row);
+        frame.writeRow(shard.firstRow + y, row);
+      }
+    }
+    return frame;
+  }
+
+  private void checkBoard(final CoordinateSystem coordinateSystem) {
+    if (coordinateSystem.columns != board.columns || coordinateSystem.rows != board.rows) {
+      throw new IllegalArgumentException(String.format(
+          "%s is part of a %d x %d board, not a %d x %d one", this, board.columns, board.rows,
+          coordinateSystem.columns, coordinateSystem.rows));
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final Shard that = (Shard) o;
+    return board.columns == that.board.columns &&
+        board.rows == that.board.rows &&
+        index == that.index &&
+        count == that.count;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(board.columns, board.rows, index, count);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("Shard{");
+    sb.append("index=").append(index);
+    sb.append(", count=").append(count);
+    sb.append(", firstRow=").append(firstRow);
+    sb.append(", rows=").append(rows);
+    sb.append('}');
+    return sb.toString();
+  }
+}
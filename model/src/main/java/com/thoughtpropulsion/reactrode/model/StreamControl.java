@@ -0,0 +1,142 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * What a client wants to see right now: a viewport (which includes a generation stride), a
+ * target frame rate, and whether it's paused.
+ *
+ * A client streams these to us over a request channel (see {@link #cells}) whenever it pans,
+ * zooms, speeds up or pauses. Each one replaces the one before. The outgoing stream adjusts in
+ * place, so changing what you're looking at doesn't resubscribe to (or restart) the game.
+ */
+public class StreamControl {
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  public final Viewport viewport;
+  // 0 for as many as request-n allows
+  public final int framesPerSecond;
+  public final boolean paused;
+
+  public static StreamControl create(final Viewport viewport) {
+    return create(viewport, 0, false);
+  }
+
+  public static StreamControl create(final Viewport viewport, final int framesPerSecond,
+                                     final boolean paused) {
+    if (viewport == null || framesPerSecond < 0) {
+      throw new IllegalArgumentException(String.format(
+          "Expected a viewport and a non-negative frame rate but got %s and %d",
+          viewport, framesPerSecond));
+    }
+    return new StreamControl(viewport, framesPerSecond, paused);
+  }
+
+  /**
+   * The cells of {@param frames} that the latest of {@param controls} asks for. Nothing is sent
+   * until the first control arrives. When {@param controls} completes, the last one stays in
+   * effect.
+   *
+   * Frames arriving faster than the target frame rate are dropped, as are frames arriving while
+   * paused. As with {@link Viewport#cells(Publisher)} a live cell is newborn if it was dead in the
+   * previous slice we sent, unless the viewport has changed since, in which case every live cell
+   * is newborn.
+   */
+  public static Flux<Cell> cells(final Publisher<Frame> frames,
+                                 final Publisher<StreamControl> controls) {
+    return Flux.defer(() -> {
+      final AtomicReference<StreamControl> control = new AtomicReference<>();
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      final AtomicReference<Viewport> previousViewport = new AtomicReference<>();
+      // so that the first frame is never too soon
+      final AtomicLong lastSent = new AtomicLong(now() - NANOS_PER_SECOND);
+
+      final Flux<Cell> cells = Flux.from(frames)
+          .concatMapIterable(frame -> {
+            final StreamControl current = control.get();
+            if (current == null || !current.admits(frame.getGeneration(), lastSent)) {
+              return Collections.<Cell>emptyList();
+            }
+            final Viewport viewport = current.viewport;
+            final Frame slice = viewport.slice(frame);
+            final Frame before = previous.getAndSet(slice);
+            final boolean moved = !viewport.equals(previousViewport.getAndSet(viewport));
+            return viewport.toCells(slice, moved ? null : before, frame.coordinateSystem);
+          }, 1);
+
+      return Flux.merge(
+          Flux.from(controls).doOnNext(control::set).then(Mono.<Cell>empty()),
+          cells);
+    });
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private StreamControl() {
+    this(null, 0, false);
+  }
+
+  private StreamControl(final Viewport viewport, final int framesPerSecond,
+                        final boolean paused) {
+    this.viewport = viewport;
+    this.framesPerSecond = framesPerSecond;
+    this.paused = paused;
+  }
+
+  /*
+   Should we send this generation? If so, we note the time we sent it.
+   */
+  private boolean admits(final int generation, final AtomicLong lastSent) {
+    if (paused || !viewport.includesGeneration(generation)) {
+      return false;
+    }
+    final long now = now();
+    if (framesPerSecond > 0 && now - lastSent.get() < NANOS_PER_SECOND / framesPerSecond) {
+      return false;
+    }
+    lastSent.set(now);
+    return true;
+  }
+
+  // Reactor's clock, so tests can use virtual time
+  private static long now() {
+    return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final StreamControl that = (StreamControl) o;
+    return framesPerSecond == that.framesPerSecond &&
+        paused == that.paused &&
+        Objects.equals(viewport, that.viewport);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(viewport, framesPerSecond, paused);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("StreamControl{");
+    sb.append("viewport=").append(viewport);
+    sb.append(", framesPerSecond=").append(framesPerSecond);
+    sb.append(", paused=").append(paused);
+    sb.append('}');
+    return sb.toString();
+  }
+}
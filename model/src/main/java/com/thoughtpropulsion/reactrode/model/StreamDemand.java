@@ -0,0 +1,105 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+/**
+ * How a client's streams of generations ask for them: as much as their subscribers request, or
+ * with an {@link AdaptiveDemand} of their own.
+ *
+ * The latest adaptive stream's demand can be read via {@link #getDemand()}, and while a stream is
+ * subscribed its demand and throughput are logged every report interval.
+ */
+public class StreamDemand {
+
+  private static final Logger logger = Loggers.getLogger(StreamDemand.class);
+
+  private final boolean adaptive;
+  private final int minimumGenerations;
+  private final int maximumGenerations;
+  private final Duration horizon;
+  private final Duration reportInterval;
+
+  // of the latest stream subscribed to
+  private volatile AdaptiveDemand<?> latest;
+
+  /**
+   * Streams take as much as their subscribers request, e.g. via {@code limitRate()}.
+   */
+  public static StreamDemand unmanaged() {
+    return new StreamDemand(false, 1, 1, Duration.ZERO, Duration.ZERO);
+  }
+
+  /**
+   * Streams request as many whole generations as they can consume over {@param horizon}, but no
+   * fewer than {@param minimumGenerations} and no more than {@param maximumGenerations}. A zero
+   * {@param reportInterval} doesn't log.
+   */
+  public static StreamDemand create(final int minimumGenerations, final int maximumGenerations,
+                                    final Duration horizon, final Duration reportInterval) {
+    if (reportInterval.isNegative()) {
+      throw new IllegalArgumentException(String.format(
+          "Expected a non-negative report interval but got %s", reportInterval));
+    }
+    return new StreamDemand(true, minimumGenerations, maximumGenerations, horizon,
+        reportInterval);
+  }
+
+  private StreamDemand(final boolean adaptive, final int minimumGenerations,
+                       final int maximumGenerations, final Duration horizon,
+                       final Duration reportInterval) {
+    this.adaptive = adaptive;
+    this.minimumGenerations = minimumGenerations;
+    this.maximumGenerations = maximumGenerations;
+    this.horizon = horizon;
+    this.reportInterval = reportInterval;
+  }
+
+  /**
+   * @return the elements (cells or frames) the latest stream is keeping requested, or 0 if
+   * demand isn't adaptive
+   */
+  public long getDemand() {
+    final AdaptiveDemand<?> current = latest;
+    return current == null ? 0 : current.getDemand();
+  }
+
+  /**
+   * {@param stream} of elements of generations, with its demand managed. Every subscription gets
+   * its own {@link AdaptiveDemand}.
+   */
+  public <T> Flux<T> apply(final Flux<T> stream, final ToIntFunction<? super T> generationOf) {
+    if (!adaptive) {
+      return stream;
+    }
+    return Flux.defer(() -> {
+      /*
+       A frame is a generation. We don't know how many cells there are per generation until we
+       see them, so start by assuming one: AdaptiveDemand widens the window as they arrive.
+       */
+      final AdaptiveDemand<T> streamDemand = AdaptiveDemand.create(
+          generationOf, 1, minimumGenerations, maximumGenerations, horizon);
+      latest = streamDemand;
+      final Disposable reports = report(streamDemand);
+      return streamDemand.apply(stream)
+          .doFinally(_signal -> reports.dispose());
+    });
+  }
+
+  private Disposable report(final AdaptiveDemand<?> streamDemand) {
+    if (reportInterval.isZero()) {
+      return Disposables.disposed();
+    }
+    return Flux.interval(reportInterval, reportInterval)
+        .subscribe(_tick -> logger.info(
+            "demand {} elements ({} per generation), consuming {} elements per second",
+            streamDemand.getDemand(), streamDemand.getElementsPerGeneration(),
+            Math.round(streamDemand.getThroughput())));
+  }
+}
@@ -0,0 +1,133 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+/**
+ * A rectangular window onto the board (a region of interest), plus a generation stride.
+ *
+ * The window's top-left corner is at ({@code x}, {@code y}) in board coordinates. Like everything
+ * else on the torus, the window wraps around the edges of the board, but it can be no larger than
+ * the board. A stride of n selects every nth generation.
+ *
+ * Clients that show only part of a big board subscribe with a viewport so that we send them only
+ * the cells they'll draw.
+ */
+public class Viewport {
+  public final int x;
+  public final int y;
+  public final int columns;
+  public final int rows;
+  public final int stride;
+
+  public static Viewport create(final int x, final int y, final int columns, final int rows) {
+    return create(x, y, columns, rows, 1);
+  }
+
+  public static Viewport create(final int x, final int y, final int columns, final int rows,
+                                final int stride) {
+    return new Viewport(x, y, columns, rows, stride);
+  }
+
+  // don't call this. It's here to make RSocket serialization via Jackson work
+  private Viewport() {
+    this(0, 0, 0, 0, 1);
+  }
+
+  private Viewport(final int x, final int y, final int columns, final int rows,
+                   final int stride) {
+    this.x = x;
+    this.y = y;
+    this.columns = columns;
+    this.rows = rows;
+    this.stride = stride;
+  }
+
+  public boolean includesGeneration(final int generation) {
+    return stride <= 1 || Math.floorMod(generation, stride) == 0;
+  }
+
+  /**
+   * The part of {@param frame} inside this viewport, as a frame of its own.
+   */
+  public Frame slice(final Frame frame) {
+    checkFits(frame.coordinateSystem);
+    return frame.slice(x, y, columns, rows);
+  }
+
+  /**
+   * Slice every generation we're interested in.
+   */
+  public Flux<Frame> slices(final Publisher<Frame> frames) {
+    return Flux.from(frames)
+        .filter(frame -> includesGeneration(frame.getGeneration()))
+        .map(this::slice);
+  }
+
+  /**
+   * Unpack slices into cells, in board coordinates. As with {@link GameOfLife#toCells(Publisher)}
+   * a live cell is newborn if it was dead in the previous slice we sent.
+   */
+  public Flux<Cell> cells(final Publisher<Frame> frames) {
+    return Flux.defer(() -> {
+      final AtomicReference<Frame> previous = new AtomicReference<>();
+      return Flux.from(frames)
+          .filter(frame -> includesGeneration(frame.getGeneration()))
+          .concatMapIterable(frame -> {
+            final Frame slice = slice(frame);
+            return toCells(slice, previous.getAndSet(slice), frame.coordinateSystem);
+          }, 1);
+    });
+  }
+
+  List<Cell> toCells(final Frame slice, final Frame previous,
+                     final CoordinateSystem coordinateSystem) {
+    return slice.toCells(previous, x, y, coordinateSystem);
+  }
+
+  private void checkFits(final CoordinateSystem coordinateSystem) {
+    if (columns < 1 || rows < 1 || stride < 1
+        || columns > coordinateSystem.columns || rows > coordinateSystem.rows) {
+      throw new IllegalArgumentException(String.format(
+          "Viewport %s doesn't fit a %d x %d board",
+          this, coordinateSystem.columns, coordinateSystem.rows));
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final Viewport that = (Viewport) o;
+    return x == that.x &&
+        y == that.y &&
+        columns == that.columns &&
+        rows == that.rows &&
+        stride == that.stride;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(x, y, columns, rows, stride);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("Viewport{");
+    sb.append("x=").append(x);
+    sb.append(", y=").append(y);
+    sb.append(", columns=").append(columns);
+    sb.append(", rows=").append(rows);
+    sb.append(", stride=").append(stride);
+    sb.append('}');
+    return sb.toString();
+  }
+}
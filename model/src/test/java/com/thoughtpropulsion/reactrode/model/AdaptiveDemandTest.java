@@ -0,0 +1,122 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class AdaptiveDemandTest {
+
+  private static final int CELLS_PER_GENERATION = 10;
+
+  @Test
+  void requestsWholeGenerationsUpToTheMaximum() {
+    final AdaptiveDemand<Integer> demand = AdaptiveDemand.create(
+        generation -> generation, CELLS_PER_GENERATION, 2, 4, Duration.ofMillis(250));
+    final List<Long> requests = new CopyOnWriteArrayList<>();
+    final AtomicLong outstanding = new AtomicLong();
+    final AtomicLong mostOutstanding = new AtomicLong();
+
+    StepVerifier.create(demand.apply(generations(100)
+        .doOnRequest(n -> {
+          requests.add(n);
+          mostOutstanding.accumulateAndGet(outstanding.addAndGet(n), Math::max);
+        })
+        .doOnNext(_generation -> outstanding.decrementAndGet())))
+        .expectNextSequence(generations(100).toIterable())
+        .verifyComplete();
+
+    assertThat(requests).allMatch(n -> n % CELLS_PER_GENERATION == 0);
+    assertThat(mostOutstanding.get()).isLessThanOrEqualTo(4 * CELLS_PER_GENERATION);
+  }
+
+  @Test
+  void learnsGenerationSize() {
+    final AdaptiveDemand<Integer> demand =
+        AdaptiveDemand.create(generation -> generation, 1, 2, 4, Duration.ofMillis(250));
+
+    StepVerifier.create(demand.apply(generations(5)))
+        .expectNextCount(5 * CELLS_PER_GENERATION)
+        .verifyComplete();
+
+    assertThat(demand.getElementsPerGeneration()).isEqualTo(CELLS_PER_GENERATION);
+  }
+
+  @Test
+  void smallHintWidensAsTheFirstGenerationsArrive() {
+    final int cellsPerGeneration = 1000;
+    final AdaptiveDemand<Integer> demand =
+        AdaptiveDemand.create(generation -> generation, 1, 2, 8, Duration.ofMillis(250));
+    final List<Long> requests = new CopyOnWriteArrayList<>();
+
+    StepVerifier.create(demand.apply(generations(3, cellsPerGeneration)
+        .doOnRequest(requests::add)))
+        .expectNextCount(3 * cellsPerGeneration)
+        .verifyComplete();
+
+    // doubling, more or less, rather than a request every few cells
+    assertThat(requests).hasSizeLessThan(40);
+    assertThat(requests).anyMatch(n -> n >= cellsPerGeneration);
+  }
+
+  @Test
+  void slowConsumerGetsMinimumDemand() {
+    final AdaptiveDemand<Integer> demand = AdaptiveDemand.create(
+        generation -> generation, CELLS_PER_GENERATION, 2, 8, Duration.ofMillis(250));
+
+    // 10 cells a second
+    consume(demand, Duration.ofMillis(100), 50);
+
+    assertThat(demand.getThroughput()).isLessThan(100);
+    assertThat(demand.getDemand()).isEqualTo(2 * CELLS_PER_GENERATION);
+  }
+
+  @Test
+  void fastConsumerGetsMaximumDemand() {
+    final AdaptiveDemand<Integer> demand = AdaptiveDemand.create(
+        generation -> generation, CELLS_PER_GENERATION, 2, 8, Duration.ofMillis(250));
+
+    // 1000 cells a second: more than 8 generations in 250ms
+    consume(demand, Duration.ofMillis(1), 2000);
+
+    assertThat(demand.getThroughput()).isGreaterThan(500);
+    assertThat(demand.getDemand()).isEqualTo(8 * CELLS_PER_GENERATION);
+  }
+
+  @Test
+  void emptyGenerationRangeIsRejected() {
+    assertThatThrownBy(() -> AdaptiveDemand.<Integer>create(
+        generation -> generation, CELLS_PER_GENERATION, 4, 2, Duration.ofMillis(250)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void consume(final AdaptiveDemand<Integer> demand, final Duration perCell,
+                              final int cells) {
+    StepVerifier.withVirtualTime(() -> demand.apply(generations(Integer.MAX_VALUE))
+        .concatMap(generation -> Mono.delay(perCell).thenReturn(generation))
+        .take(cells))
+        .thenAwait(perCell.multipliedBy(cells * 2))
+        .expectNextCount(cells)
+        .verifyComplete();
+  }
+
+  /*
+   Cells, as their generation numbers.
+   */
+  private static Flux<Integer> generations(final int count) {
+    return generations(count, CELLS_PER_GENERATION);
+  }
+
+  private static Flux<Integer> generations(final int count, final int cellsPerGeneration) {
+    return Flux.range(0, count)
+        .concatMap(generation -> Flux.range(0, cellsPerGeneration).map(_cell -> generation));
+  }
+}
@@ -0,0 +1,56 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class BlockedEngineTest {
+
+  /*
+   Halos taller than the band, and bands and halos taller than the board (which wrap around the
+   torus more than once) must all work.
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "1,1,1,1", "70,9,1,1", "70,9,3,2", "70,9,7,200", "129,130,2,5", "129,130,7,16",
+      "64,3,5,1"})
+  void matchesFrameEngine(final int columns, final int rows, final int generations,
+                          final int bandRows) {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    final Frame source = Patterns.randomFrame(coordinateSystem, 0, 1, 0.4);
+    final Frame expected = source.copy();
+    for (int generation = 0; generation < generations; generation++) {
+      FrameEngine.step(expected);
+    }
+    final Frame unchanged = source.copy();
+
+    final Frame destination = Frame.allocate(coordinateSystem, 0);
+    BlockedEngine.step(source, destination, generations, bandRows);
+
+    assertThat(destination).isEqualTo(expected);
+    assertThat(source).isEqualTo(unchanged);
+  }
+
+  @Test
+  void advanceSeeksInPasses() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(129, 130);
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 5, 1, 0.4);
+    final Frame expected = frame.copy();
+    for (int generation = 0; generation < 37; generation++) {
+      FrameEngine.step(expected);
+    }
+
+    assertThat(BlockedEngine.advance(frame, 37, 8)).isEqualTo(expected);
+  }
+
+  @Test
+  void steppingInPlaceIsRejected() {
+    final Frame frame = Frame.allocate(new CoordinateSystem(4, 5), 0);
+
+    assertThatThrownBy(() -> BlockedEngine.step(frame, frame, 2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
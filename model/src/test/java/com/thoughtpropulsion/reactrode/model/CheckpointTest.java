@@ -0,0 +1,78 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class CheckpointTest {
+
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(70, 9);
+
+  @Test
+  void roundTrip(@TempDir final Path directory) throws IOException {
+    final Path file = directory.resolve("game.checkpoint");
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 12_345, 1, 0.5);
+
+    Checkpoint.write(frame, file);
+
+    assertThat(Checkpoint.read(file, coordinateSystem)).contains(frame);
+    assertThat(directory.resolve("game.checkpoint.tmp")).doesNotExist();
+  }
+
+  @Test
+  void laterCheckpointReplacesEarlier(@TempDir final Path directory) throws IOException {
+    final Path file = directory.resolve("game.checkpoint");
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 1, 0.5);
+
+    Checkpoint.write(frame, file);
+    FrameEngine.step(frame);
+    Checkpoint.write(frame, file);
+
+    assertThat(Checkpoint.read(file, coordinateSystem)).contains(frame);
+  }
+
+  @Test
+  void missingOrDifferentSizedCheckpointIsIgnored(@TempDir final Path directory)
+      throws IOException {
+    final Path file = directory.resolve("game.checkpoint");
+
+    assertThat(Checkpoint.read(file, coordinateSystem)).isEmpty();
+
+    Checkpoint.write(Patterns.randomFrame(new CoordinateSystem(9, 70), 0, 1, 0.5), file);
+
+    assertThat(Checkpoint.read(file, coordinateSystem)).isEmpty();
+  }
+
+  @Test
+  void corruptCheckpointIsRejected(@TempDir final Path directory) throws IOException {
+    final Path file = directory.resolve("game.checkpoint");
+    Files.write(file, new byte[Checkpoint.HEADER_BYTES + Frame.byteSize(coordinateSystem)]);
+
+    assertThatThrownBy(() -> Checkpoint.read(file, coordinateSystem))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void gameResumesFromCheckpointedGeneration() {
+    final Frame checkpointed = Patterns.randomFrame(coordinateSystem, 1000, 1, 0.5);
+    final Frame expected = checkpointed.copy();
+    FrameEngine.step(expected);
+
+    final GameOfLifeSystem system = GameOfLifeSystem.create(checkpointed);
+
+    StepVerifier.create(Flux.from(system.getAllFrames()).take(2))
+        .expectNext(checkpointed)
+        .expectNext(expected)
+        .expectComplete()
+        .verify();
+    assertThat(system.getHistory().getLatestGeneration()).isEqualTo(1001);
+  }
+}
@@ -1,6 +1,7 @@
 package com.thoughtpropulsion.reactrode.model;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
 import com.thoughtpropulsion.reactrode.model.Coordinates;
@@ -42,6 +43,31 @@ class CoordinatesOffsetTest {
     }
   }
 
+  @Test
+  void roundTripPastIntOffsets() {
+    // an int offset for this board overflows at about generation 13,421
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(400, 400);
+    for (final int generation : new int[]{13_421, 1_000_000, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+      final Coordinates coordinates = coordinateSystem.createCoordinates(399, 17, generation);
+      assertThat(coordinateSystem.createCoordinates(coordinateSystem.toOffset(coordinates)))
+          .isEqualTo(coordinates);
+    }
+    assertThat(coordinateSystem.toOffset(0, 0, 1_000_001))
+        .isGreaterThan(coordinateSystem.toOffset(399, 399, 1_000_000));
+  }
+
+  @Test
+  void boardBiggerThanAnInt() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(50_000, 50_000);
+
+    assertThat(coordinateSystem.size()).isEqualTo(2_500_000_000L);
+    assertThatThrownBy(coordinateSystem::intSize).isInstanceOf(IllegalArgumentException.class);
+    // a cell past the first 2^31 of a generation
+    final Coordinates coordinates = coordinateSystem.createCoordinates(49_999, 49_999, 3);
+    assertThat(coordinateSystem.createCoordinates(coordinateSystem.toOffset(coordinates)))
+        .isEqualTo(coordinates);
+  }
+
   @Test
   void spotCheck() {
     checkOffset(-7, -2, 1, 2);
@@ -0,0 +1,109 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.GapException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class DeltaFrameTest {
+
+  private static final int GENERATIONS = 20;
+  private static final int KEYFRAME_INTERVAL = 7;
+
+  @ParameterizedTest
+  @EnumSource(Compression.class)
+  void decodeReconstructsEncodedFrames(final Compression compression) {
+    final List<Frame> frames = generations(new CoordinateSystem(129, 130));
+
+    final List<DeltaFrame> deltas =
+        DeltaFrame.encode(Flux.fromIterable(frames), KEYFRAME_INTERVAL, compression)
+            .collectList().block();
+
+    assertThat(deltas).extracting(delta -> delta.keyframe)
+        .containsExactly(true, false, false, false, false, false, false,
+            true, false, false, false, false, false, false,
+            true, false, false, false, false, false);
+    assertThat(DeltaFrame.decode(Flux.fromIterable(deltas)).collectList().block())
+        .isEqualTo(frames);
+  }
+
+  @Test
+  void sparseBoardCompressesByOrdersOfMagnitude() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(1024, 1024);
+    final Frame glider = Frame.allocate(coordinateSystem, 0);
+    glider.setAlive(1, 0, true);
+    glider.setAlive(2, 1, true);
+    glider.setAlive(0, 2, true);
+    glider.setAlive(1, 2, true);
+    glider.setAlive(2, 2, true);
+    final Frame next = glider.copy();
+    FrameEngine.step(next);
+
+    final int uncompressed = Frame.byteSize(coordinateSystem);
+    assertThat(DeltaFrame.keyframe(glider, Compression.DEFLATE).bits.length)
+        .isLessThan(uncompressed / 100);
+    assertThat(DeltaFrame.delta(glider, next, Compression.DEFLATE).bits.length)
+        .isLessThan(uncompressed / 100);
+  }
+
+  @Test
+  void gapIsDetected() {
+    final List<Frame> frames = generations(new CoordinateSystem(70, 9));
+    final DeltaFrame keyframe = DeltaFrame.keyframe(frames.get(0), Compression.DEFLATE);
+    // the delta from generation 1 to 2 without the delta from 0 to 1
+    final DeltaFrame delta = DeltaFrame.delta(frames.get(1), frames.get(2), Compression.DEFLATE);
+
+    StepVerifier.create(DeltaFrame.decode(Flux.just(keyframe, delta)))
+        .expectNext(frames.get(0))
+        .expectError(GapException.class)
+        .verify();
+  }
+
+  @Test
+  void resubscribingResyncs() {
+    final List<Frame> frames = generations(new CoordinateSystem(70, 9));
+    final Flux<DeltaFrame> deltas =
+        DeltaFrame.encode(Flux.fromIterable(frames), KEYFRAME_INTERVAL, Compression.DEFLATE);
+    // lose the second delta of the first subscription only
+    final AtomicBoolean lost = new AtomicBoolean();
+    final Flux<DeltaFrame> lossy =
+        deltas.filter(delta -> delta.generation != 2 || !lost.compareAndSet(false, true));
+
+    StepVerifier.create(DeltaFrame.decode(lossy).retry(GapException.class::isInstance))
+        .expectNext(frames.get(0), frames.get(1))
+        .expectNextSequence(frames)
+        .verifyComplete();
+  }
+
+  @Test
+  void corruptBitsAreRejected() {
+    final Frame frame = Patterns.randomFrame(new CoordinateSystem(70, 9), 0, 1, 0.5);
+    final DeltaFrame keyframe = DeltaFrame.keyframe(frame, Compression.DEFLATE);
+    final DeltaFrame truncated = DeltaFrame.create(keyframe.generation, true,
+        keyframe.baseGeneration, keyframe.columns, keyframe.rows, keyframe.compression,
+        new byte[]{keyframe.bits[0], keyframe.bits[1]});
+
+    assertThatThrownBy(() -> truncated.apply(null))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<Frame> generations(final CoordinateSystem coordinateSystem) {
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 1, 0.3);
+    final List<Frame> frames = new ArrayList<>();
+    for (int generation = 0; generation < GENERATIONS; generation++) {
+      frames.add(frame.copy());
+      FrameEngine.step(frame);
+    }
+    return frames;
+  }
+}
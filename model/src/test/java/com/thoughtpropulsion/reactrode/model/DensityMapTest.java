@@ -0,0 +1,87 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DensityMapTest {
+
+  // neither dimension is a multiple of any block size, so edge blocks are partial
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(130, 70);
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6})
+  void countsMatchCells(final int level) {
+    final Frame frame = randomFrame();
+
+    final DensityMap densityMap = DensityMap.of(frame, level);
+
+    final int blockSize = 1 << level;
+    assertThat(densityMap.columns).isEqualTo((130 + blockSize - 1) / blockSize);
+    assertThat(densityMap.rows).isEqualTo((70 + blockSize - 1) / blockSize);
+    final int[] expected = new int[densityMap.columns * densityMap.rows];
+    for (int y = 0; y < coordinateSystem.rows; y++) {
+      for (int x = 0; x < coordinateSystem.columns; x++) {
+        if (frame.isAlive(x, y)) {
+          expected[(y / blockSize) * densityMap.columns + x / blockSize]++;
+        }
+      }
+    }
+    for (int row = 0; row < densityMap.rows; row++) {
+      for (int column = 0; column < densityMap.columns; column++) {
+        assertThat(densityMap.getCount(column, row))
+            .as("column %d, row %d", column, row)
+            .isEqualTo(expected[row * densityMap.columns + column]);
+      }
+    }
+  }
+
+  @Test
+  void coarserMatchesDirectCalculation() {
+    final Frame frame = randomFrame();
+
+    DensityMap densityMap = DensityMap.of(frame, 0);
+    while (densityMap.level < DensityMap.MAX_LEVEL) {
+      densityMap = densityMap.coarser();
+      assertThat(densityMap).isEqualTo(DensityMap.of(frame, densityMap.level));
+    }
+  }
+
+  @Test
+  void frameRemembersDensityMapsUntilStepped() {
+    final Frame frame = randomFrame();
+
+    final DensityMap densityMap = frame.getDensityMap(3);
+    assertThat(frame.getDensityMap(3)).isSameAs(densityMap);
+    assertThat(frame.getDensityMap(4)).isEqualTo(DensityMap.of(frame, 4));
+
+    FrameEngine.step(frame);
+
+    assertThat(frame.getDensityMap(3)).isEqualTo(DensityMap.of(frame, 3));
+    assertThat(frame.getDensityMap(3).generation).isEqualTo(1);
+  }
+
+  @Test
+  void levelFittingBoundsBlocks() {
+    final CoordinateSystem big = new CoordinateSystem(4000, 4000);
+
+    assertThat(DensityMap.levelFitting(big, 1_000_000)).isEqualTo(2);
+    assertThat(DensityMap.levelFitting(big, Long.MAX_VALUE)).isEqualTo(0);
+    assertThat(DensityMap.levelFitting(big, 1)).isEqualTo(DensityMap.MAX_LEVEL);
+  }
+
+  @Test
+  void levelOutOfRangeIsRejected() {
+    assertThatThrownBy(() -> DensityMap.of(randomFrame(), DensityMap.MAX_LEVEL + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Frame randomFrame() {
+    return Frame.fromCells(
+        Patterns.cellsFromBits(Patterns.randomList(coordinateSystem), 0, coordinateSystem),
+        coordinateSystem);
+  }
+}
@@ -0,0 +1,168 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class FrameTest {
+
+  private static final int GENERATIONS = 20;
+
+  /*
+   Compare the bit-parallel engine against a naive cell-at-a-time calculation. Board widths are
+   chosen to straddle word boundaries since that's where wrap-around bugs hide.
+   */
+  @ParameterizedTest
+  @CsvSource({"1,1", "5,4", "63,5", "64,3", "65,7", "70,67", "129,130"})
+  void matchesNaiveCalculation(final int columns, final int rows) {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    final List<Boolean> pattern = Patterns.randomList(coordinateSystem);
+
+    final Frame frame = Frame.allocateDirect(coordinateSystem, 0);
+    boolean[][] expected = new boolean[rows][columns];
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < columns; x++) {
+        expected[y][x] = pattern.get(y * columns + x);
+        frame.setAlive(x, y, expected[y][x]);
+      }
+    }
+
+    for (int generation = 1; generation <= GENERATIONS; generation++) {
+      expected = naiveSuccessor(expected);
+      FrameEngine.step(frame);
+
+      assertThat(frame.getGeneration()).isEqualTo(generation);
+      for (int y = 0; y < rows; y++) {
+        for (int x = 0; x < columns; x++) {
+          assertThat(frame.isAlive(x, y))
+              .as("generation %d, x %d, y %d", generation, x, y)
+              .isEqualTo(expected[y][x]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void gliderCrossesWordBoundaryAndWraps() {
+    // non-square board, wider than one word
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(70, 9);
+    final Frame frame = Frame.allocate(coordinateSystem, 0);
+
+    // a glider heading south-east (increasing x and y), starting near the east edge
+    frame.setAlive(66, 0, true);
+    frame.setAlive(67, 1, true);
+    frame.setAlive(65, 2, true);
+    frame.setAlive(66, 2, true);
+    frame.setAlive(67, 2, true);
+
+    // a glider moves one cell diagonally every four generations
+    final int periods = 10;
+    for (int i = 0; i < periods * 4; i++) {
+      FrameEngine.step(frame);
+    }
+
+    final Frame expected = Frame.allocate(coordinateSystem, periods * 4);
+    expected.setAlive(66 + periods, periods, true);
+    expected.setAlive(67 + periods, 1 + periods, true);
+    expected.setAlive(65 + periods, 2 + periods, true);
+    expected.setAlive(66 + periods, 2 + periods, true);
+    expected.setAlive(67 + periods, 2 + periods, true);
+
+    assertThat(frame).isEqualTo(expected);
+    assertThat(frame.population()).isEqualTo(5);
+  }
+
+  @Test
+  void mappedFrameSurvivesRemapping(@TempDir final Path directory) throws IOException {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(100, 100);
+    final Path file = directory.resolve("frame.bits");
+
+    final Frame frame = Frame.map(coordinateSystem, 0, file);
+    Frame.fromCells(Patterns.cellsFromBits(
+        Patterns.pufferfishSpaceshipPattern(coordinateSystem), 0, coordinateSystem),
+        coordinateSystem)
+        .copyTo(frame);
+    FrameEngine.step(frame);
+
+    assertThat(Files.size(file)).isEqualTo(Frame.byteSize(coordinateSystem));
+    assertThat(Frame.map(coordinateSystem, 1, file)).isEqualTo(frame);
+  }
+
+  @Test
+  void statisticsMaintainedWhileStepping() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(130, 70);
+    final Frame frame = Frame.fromCells(
+        Patterns.cellsFromBits(Patterns.randomList(coordinateSystem), 0, coordinateSystem),
+        coordinateSystem);
+
+    for (int generation = 1; generation <= GENERATIONS; generation++) {
+      final Frame previous = frame.copy();
+      final GenerationStatistics statistics = FrameEngine.step(frame);
+      final GenerationStatistics recalculated = GenerationStatistics.of(frame);
+
+      long births = 0;
+      long deaths = 0;
+      for (int y = 0; y < coordinateSystem.rows; y++) {
+        for (int x = 0; x < coordinateSystem.columns; x++) {
+          if (frame.isAlive(x, y) && !previous.isAlive(x, y)) {
+            births++;
+          } else if (!frame.isAlive(x, y) && previous.isAlive(x, y)) {
+            deaths++;
+          }
+        }
+      }
+
+      assertThat(statistics.generation).isEqualTo(generation);
+      assertThat(statistics.population).isEqualTo(frame.population());
+      assertThat(statistics.births).isEqualTo(births);
+      assertThat(statistics.deaths).isEqualTo(deaths);
+      assertThat(statistics.minX).isEqualTo(recalculated.minX);
+      assertThat(statistics.minY).isEqualTo(recalculated.minY);
+      assertThat(statistics.maxX).isEqualTo(recalculated.maxX);
+      assertThat(statistics.maxY).isEqualTo(recalculated.maxY);
+      assertThat(frame.getStatistics()).isSameAs(statistics);
+    }
+  }
+
+  @Test
+  void cellsRoundTrip() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(4, 5);
+    final Iterable<Cell> cells =
+        Patterns.cellsFromBits(Patterns.stableBlockPattern(), 3, coordinateSystem);
+
+    final Frame frame = Frame.fromCells(cells, coordinateSystem);
+
+    assertThat(frame.getGeneration()).isEqualTo(3);
+    assertThat(frame.toCells(null)).containsExactlyElementsOf(cells);
+  }
+
+  private static boolean[][] naiveSuccessor(final boolean[][] board) {
+    final int rows = board.length;
+    final int columns = board[0].length;
+    final boolean[][] successor = new boolean[rows][columns];
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < columns; x++) {
+        int liveNeighborsCount = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+          for (int dx = -1; dx <= 1; dx++) {
+            if ((dx != 0 || dy != 0) &&
+                board[Math.floorMod(y + dy, rows)][Math.floorMod(x + dx, columns)]) {
+              liveNeighborsCount++;
+            }
+          }
+        }
+        successor[y][x] = board[y][x] ? liveNeighborsCount == 2 || liveNeighborsCount == 3
+            : liveNeighborsCount == 3;
+      }
+    }
+    return successor;
+  }
+}
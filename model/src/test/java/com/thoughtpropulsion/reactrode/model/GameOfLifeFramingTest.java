@@ -49,12 +49,12 @@ class GameOfLifeFramingTest {
 
   @Test
   void producesEndOfFirstGeneration() {
-    testFraming(gameOfLifeSystem.getCoordinateSystem().size() - 1);
+    testFraming(gameOfLifeSystem.getCoordinateSystem().intSize() - 1);
   }
 
   @Test
   void producesBeginningOfSecondGeneration() {
-    testFraming(gameOfLifeSystem.getCoordinateSystem().size());
+    testFraming(gameOfLifeSystem.getCoordinateSystem().intSize());
   }
 
   private void testFraming(final int skip) {
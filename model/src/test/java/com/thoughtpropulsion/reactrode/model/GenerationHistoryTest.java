@@ -0,0 +1,155 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class GenerationHistoryTest {
+
+  private static final int PRIMORDIAL_GENERATION = -1;
+
+  private CoordinateSystem coordinateSystem;
+  private Frame primordial;
+
+  @BeforeEach
+  void beforeEach() {
+    coordinateSystem = new CoordinateSystem(100, 100);
+    primordial = Frame.fromCells(
+        Patterns.cellsFromBits(
+            Patterns.pufferfishSpaceshipPattern(coordinateSystem), PRIMORDIAL_GENERATION,
+            coordinateSystem),
+        coordinateSystem);
+  }
+
+  @Test
+  void evictsOldestGenerations() {
+    final GenerationHistory history = GenerationHistory.create(coordinateSystem, 4, Long.MAX_VALUE);
+
+    final Frame frame = primordial.copy();
+    for (int i = 0; i < 10; i++) {
+      history.record(frame);
+      FrameEngine.step(frame);
+    }
+
+    assertThat(history.getLatestGeneration()).isEqualTo(PRIMORDIAL_GENERATION + 9);
+    assertThat(history.getOldestGeneration()).isEqualTo(PRIMORDIAL_GENERATION + 6);
+    assertThat(history.get(PRIMORDIAL_GENERATION + 5)).isEmpty();
+    assertThat(history.get(PRIMORDIAL_GENERATION + 6)).hasValueSatisfying(
+        found -> assertThat(found).isEqualTo(advance(primordial, 6)));
+  }
+
+  @Test
+  void ignoresStaleGenerations() {
+    final GenerationHistory history = GenerationHistory.create(coordinateSystem, 4, Long.MAX_VALUE);
+
+    final Frame newer = advance(primordial, 2);
+    history.record(newer);
+    history.record(primordial);
+
+    assertThat(history.getLatestGeneration()).isEqualTo(newer.getGeneration());
+    assertThat(history.get(primordial.getGeneration())).isEmpty();
+  }
+
+  @Test
+  void replayFillsGapsFromHistory() {
+    final GenerationHistory history = GenerationHistory.create(coordinateSystem, 8, Long.MAX_VALUE);
+
+    final Frame frame = primordial.copy();
+    for (int i = 0; i < 10; i++) {
+      history.record(frame);
+      FrameEngine.step(frame);
+    }
+    final int latest = history.getLatestGeneration();
+    final Frame live = frame.copy();
+
+    // seen up to latest - 3: replay the last three recorded, then the live one
+    StepVerifier.create(history.replay(latest - 3, Flux.just(history.get(latest).get(), live)))
+        .expectNext(history.get(latest - 2).get())
+        .expectNext(history.get(latest - 1).get())
+        .expectNext(history.get(latest).get())
+        .expectNext(live)
+        .verifyComplete();
+
+    // seen a generation long since evicted: resume from the oldest still held
+    StepVerifier.create(history.replay(PRIMORDIAL_GENERATION, Flux.just(live)))
+        .expectNextCount(8)
+        .expectNext(live)
+        .verifyComplete();
+  }
+
+  @Test
+  void capacityLimitedByMemoryBudget() {
+    final GenerationHistory history = GenerationHistory.create(
+        coordinateSystem, 1000, 10L * Frame.byteSize(coordinateSystem));
+
+    assertThat(history.capacity()).isEqualTo(10);
+
+    assertThatThrownBy(() -> GenerationHistory.create(coordinateSystem, 1000, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void gameOfLifeSystemRecordsHistory() {
+    final GameOfLifeSystem gameOfLifeSystem = GameOfLifeSystem.create(
+        Flux.fromIterable(primordial.toCells(null)), coordinateSystem);
+
+    Flux.from(gameOfLifeSystem.getAllFrames()).take(20).blockLast();
+
+    final GenerationHistory history = gameOfLifeSystem.getHistory();
+    assertThat(history.getLatestGeneration()).isEqualTo(PRIMORDIAL_GENERATION + 19);
+    assertThat(history.get(PRIMORDIAL_GENERATION + 10)).hasValue(advance(primordial, 10));
+  }
+
+  /*
+   Readers racing the writer must see either the generation they asked for, intact, or nothing.
+   */
+  @Test
+  void readersNeverSeeTornFrames() {
+    final GenerationHistory history = GenerationHistory.create(coordinateSystem, 2, Long.MAX_VALUE);
+    final int generations = 2_000;
+
+    final Frame[] expected = new Frame[generations];
+    final Frame frame = primordial.copy();
+    for (int i = 0; i < generations; i++) {
+      expected[i] = frame.copy();
+      FrameEngine.step(frame);
+    }
+
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    final CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+      final Frame destination = Frame.allocate(coordinateSystem, 0);
+      while (writing.get()) {
+        if (history.isEmpty()) {
+          continue;
+        }
+        final int generation = history.getLatestGeneration();
+        if (history.read(generation, destination)) {
+          assertThat(destination).isEqualTo(expected[generation - PRIMORDIAL_GENERATION]);
+        }
+      }
+    });
+
+    for (final Frame each : expected) {
+      history.record(each);
+    }
+    writing.set(false);
+
+    reader.join();
+    assertThat(history.getLatestGeneration()).isEqualTo(PRIMORDIAL_GENERATION + generations - 1);
+  }
+
+  private static Frame advance(final Frame frame, final int generations) {
+    final Frame advanced = frame.copy();
+    for (int i = 0; i < generations; i++) {
+      FrameEngine.step(advanced);
+    }
+    return advanced;
+  }
+}
@@ -0,0 +1,71 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class HybridEngineTest {
+
+  private static final int GENERATIONS = 50;
+
+  @ParameterizedTest
+  @CsvSource({"1,1", "3,3", "70,9", "129,130"})
+  void sparseEngineMatchesFrameEngine(final int columns, final int rows) {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 1, 0.3);
+    long[] live = SparseEngine.liveCells(frame);
+
+    for (int generation = 1; generation <= GENERATIONS; generation++) {
+      FrameEngine.step(frame);
+      live = SparseEngine.step(live, coordinateSystem);
+
+      assertThat(SparseEngine.toFrame(live, coordinateSystem, generation))
+          .as("generation %d", generation)
+          .isEqualTo(frame);
+    }
+  }
+
+  @Test
+  void migratesBetweenRepresentations() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(100, 100);
+    // a blinker: population 3 forever
+    final Frame blinker = Frame.allocate(coordinateSystem, 0);
+    blinker.setAlive(50, 49, true);
+    blinker.setAlive(50, 50, true);
+    blinker.setAlive(50, 51, true);
+
+    final HybridEngine sparse = HybridEngine.create(blinker, 0.001, 0.01);
+    assertThat(sparse.isSparse()).isTrue();
+
+    final HybridEngine packed = HybridEngine.create(blinker, 0.0001, 0.0002);
+    assertThat(packed.isSparse()).isFalse();
+
+    for (int generation = 1; generation <= GENERATIONS; generation++) {
+      sparse.step();
+      packed.step();
+      assertThat(sparse.toFrame()).isEqualTo(packed.toFrame());
+    }
+    assertThat(sparse.getMigrations()).isEqualTo(1);
+    assertThat(packed.getMigrations()).isEqualTo(0);
+  }
+
+  @Test
+  void hysteresisKeepsRepresentationBetweenThresholds() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(100, 100);
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 1, 0.5);
+
+    // the population of a random soup stays between these thresholds as it decays
+    final HybridEngine engine = HybridEngine.create(frame, 0.001, 0.9);
+
+    for (int generation = 1; generation <= GENERATIONS; generation++) {
+      engine.step();
+      FrameEngine.step(frame);
+      assertThat(engine.getPopulation()).isEqualTo(frame.population());
+    }
+    assertThat(engine.isSparse()).isFalse();
+    assertThat(engine.getMigrations()).isEqualTo(0);
+    assertThat(engine.getGeneration()).isEqualTo(GENERATIONS);
+  }
+}
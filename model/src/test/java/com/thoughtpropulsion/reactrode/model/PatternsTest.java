@@ -0,0 +1,70 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PatternsTest {
+
+  // taller than one chunk of rows, and not a whole number of words wide
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(1000, 300);
+
+  @Test
+  void randomFrameIsReproducible() {
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 42, 0.5);
+
+    assertThat(Patterns.randomFrame(coordinateSystem, 0, 42, 0.5)).isEqualTo(frame);
+    assertThat(Patterns.randomFrame(coordinateSystem, 0, 43, 0.5)).isNotEqualTo(frame);
+  }
+
+  @ParameterizedTest
+  @ValueSource(doubles = {0, 0.1, 0.375, 0.5, 0.9, 1})
+  void randomFrameHasRequestedDensity(final double density) {
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 42, density);
+
+    long population = 0;
+    for (int y = 0; y < coordinateSystem.rows; y++) {
+      for (int x = 0; x < coordinateSystem.columns; x++) {
+        if (frame.isAlive(x, y)) {
+          population++;
+        }
+      }
+    }
+    // padding bits are clear
+    assertThat(frame.population()).isEqualTo(population);
+    assertThat((double) population / coordinateSystem.size())
+        .isBetween(density - 0.01, density + 0.01);
+  }
+
+  @Test
+  void densityOutOfRangeIsRejected() {
+    assertThatThrownBy(() -> Patterns.randomFrame(coordinateSystem, 0, 42, 1.5))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void packedPatternUnpacksLikeBooleans() {
+    final CoordinateSystem small = new CoordinateSystem(70, 9);
+    final Pattern pattern = Patterns.randomPattern(small, 42, 0.3);
+    final List<Boolean> bits = new ArrayList<>();
+    pattern.cells.forEach(bits::add);
+
+    assertThat(Patterns.cellsFromBits(pattern, 5, small))
+        .containsExactlyElementsOf(Patterns.cellsFromBits(bits, 5, small));
+  }
+
+  @Test
+  void patternPacksLikeItsCells() {
+    final CoordinateSystem board = new CoordinateSystem(100, 70);
+    final Pattern pattern = Patterns.pufferfishSpaceshipPattern(board);
+
+    assertThat(Patterns.frameFromBits(pattern, 5, board))
+        .isEqualTo(Frame.fromCells(Patterns.cellsFromBits(pattern, 5, board), board));
+  }
+}
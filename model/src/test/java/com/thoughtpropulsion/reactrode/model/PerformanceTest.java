@@ -5,6 +5,7 @@ import static com.thoughtpropulsion.reactrode.model.Timing.elapsed;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAccumulator;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -39,4 +40,75 @@ public class PerformanceTest {
 
     System.out.println(String.format("1 x 10^%d cells generated in %d nanoseconds",exponent,elapsed));
   }
+
+  /*
+   Run a random pattern from generation 0 to 10,000 with the packed engine alone and with the
+   hybrid engine. A random pattern filling the board decays to debris that's still too dense for
+   the sparse engine. A small random patch in the middle of the board decays to sparse debris,
+   and the hybrid engine switches over.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1024, 64})
+  public void hybridEngineTimeToGenerate(final int patchSize) {
+    final int generations = 10_000;
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(1024, 1024);
+    final Frame initial = Frame.fromCells(
+        Patterns.cellsFromBits(
+            Patterns.randomPattern(new CoordinateSystem(patchSize, patchSize)),
+            0, coordinateSystem),
+        coordinateSystem);
+
+    final Frame packed = initial.copy();
+    final long packedElapsed = elapsed(() -> {
+      for (int generation = 0; generation < generations; generation++) {
+        FrameEngine.step(packed);
+      }
+    });
+
+    final HybridEngine hybrid = HybridEngine.create(initial);
+    final long hybridElapsed = elapsed(() -> {
+      while (hybrid.getGeneration() < generations) {
+        hybrid.step();
+      }
+    });
+
+    assertThat(hybrid.toFrame()).isEqualTo(packed);
+
+    System.out.println(String.format(
+        "%d x %d random patch, %d generations: packed %d nanoseconds, hybrid %d nanoseconds "
+            + "(%d migrations, ending %s with population %d)",
+        patchSize, patchSize, generations, packedElapsed, hybridElapsed,
+        hybrid.getMigrations(), hybrid.isSparse() ? "sparse" : "packed",
+        hybrid.getPopulation()));
+  }
+
+  /*
+   An 8000 x 8000 board is 8MB packed: bigger than most L2 caches and many L3s, so stepping it a
+   generation at a time is bound by memory bandwidth. Compare with advancing cache-sized bands
+   several generations at a time.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 8, 16})
+  public void blockedEngineTimeToGenerate(final int generationsPerPass) {
+    final int generations = 32;
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(8000, 8000);
+    final Frame initial = Patterns.randomFrame(coordinateSystem, 0, Patterns.DEFAULT_SEED, 0.5);
+
+    final Frame packed = initial.copy();
+    final long packedElapsed = elapsed(() -> {
+      for (int generation = 0; generation < generations; generation++) {
+        FrameEngine.step(packed);
+      }
+    });
+
+    final AtomicReference<Frame> blocked = new AtomicReference<>();
+    final long blockedElapsed = elapsed(() ->
+        blocked.set(BlockedEngine.advance(initial, generations, generationsPerPass)));
+
+    assertThat(blocked.get()).isEqualTo(packed);
+
+    System.out.println(String.format(
+        "8000 x 8000, %d generations: packed %d nanoseconds, blocked %d at a time %d nanoseconds",
+        generations, packedElapsed, generationsPerPass, blockedElapsed));
+  }
 }
@@ -0,0 +1,80 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thoughtpropulsion.reactrode.model.Shard.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import reactor.core.publisher.Flux;
+
+class ShardTest {
+
+  private static final int GENERATIONS = 20;
+
+  @ParameterizedTest
+  @CsvSource({"100,100,4", "130,70,7", "64,5,5", "70,3,2"})
+  void partitionCoversEveryRowOnce(final int columns, final int rows, final int count) {
+    final List<Shard> shards = Shard.partition(new CoordinateSystem(columns, rows), count);
+
+    int nextRow = 0;
+    for (final Shard shard : shards) {
+      assertThat(shard.firstRow).isEqualTo(nextRow);
+      assertThat(shard.rows).isBetween(rows / count, rows / count + 1);
+      nextRow += shard.rows;
+    }
+    assertThat(nextRow).isEqualTo(rows);
+  }
+
+  /*
+   Including a single band (its own neighbor on both sides), bands one row high, and boards whose
+   width isn't a whole number of words.
+   */
+  @ParameterizedTest
+  @CsvSource({"100,100,1", "100,100,3", "130,70,7", "64,5,5", "70,2,2"})
+  void shardedGenerationsMatchGameOfLife(final int columns, final int rows, final int count) {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(columns, rows);
+    final Frame primordial = Patterns.randomFrame(coordinateSystem, -1, 7, 0.4);
+    final List<Frame> expected = Flux.from(new GameOfLife(primordial, null).getAllFrames())
+        .take(GENERATIONS)
+        .collectList()
+        .block();
+    final List<Shard> shards = Shard.partition(coordinateSystem, count);
+
+    List<Frame> bands = new ArrayList<>();
+    for (final Shard shard : shards) {
+      bands.add(shard.band(primordial));
+    }
+    for (final Frame frame : expected) {
+      assertThat(Shard.stitch(shards, bands)).isEqualTo(frame);
+      final List<Frame> successors = new ArrayList<>();
+      for (final Shard shard : shards) {
+        successors.add(Shard.step(bands.get(shard.index),
+            Shard.edge(bands.get(shard.neighbor(Side.NORTH)), Side.SOUTH),
+            Shard.edge(bands.get(shard.neighbor(Side.SOUTH)), Side.NORTH)));
+      }
+      bands = successors;
+    }
+  }
+
+  @Test
+  void haloFromAnotherGenerationIsRejected() {
+    final CoordinateSystem coordinateSystem = new CoordinateSystem(64, 8);
+    final Shard shard = Shard.create(coordinateSystem, 2, 0);
+    final Frame band = shard.band(Patterns.randomFrame(coordinateSystem, 3, 1, 0.5));
+    final Frame staleHalo = Shard.edge(shard.band(Frame.allocate(coordinateSystem, 2)), Side.NORTH);
+
+    assertThatThrownBy(() -> Shard.step(band, staleHalo, Shard.edge(band, Side.NORTH)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void moreBandsThanRowsIsRejected() {
+    assertThatThrownBy(() -> Shard.create(new CoordinateSystem(10, 3), 4, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
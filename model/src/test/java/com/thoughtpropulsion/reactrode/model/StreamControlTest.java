@@ -0,0 +1,75 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+class StreamControlTest {
+
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(8, 8);
+
+  @Test
+  void controlsAdjustTheStreamInPlace() {
+    final Frame[] generations = generations(4);
+    final Viewport corner = Viewport.create(0, 0, 2, 2);
+    final Viewport middle = Viewport.create(4, 4, 3, 3);
+    final TestPublisher<Frame> frames = TestPublisher.create();
+    final TestPublisher<StreamControl> controls = TestPublisher.create();
+
+    StepVerifier.create(StreamControl.cells(frames, controls))
+        // nothing until the first control
+        .then(() -> frames.next(generations[0]))
+        .then(() -> controls.next(StreamControl.create(corner)))
+        .then(() -> frames.next(generations[1]))
+        .expectNextSequence(cells(corner, generations[1]))
+        .then(() -> controls.next(StreamControl.create(middle)))
+        .then(() -> frames.next(generations[2]))
+        .expectNextSequence(cells(middle, generations[2]))
+        .then(() -> controls.next(StreamControl.create(middle, 0, true)))
+        .then(() -> frames.next(generations[3]))
+        .expectNoEvent(Duration.ofMillis(10))
+        .then(() -> controls.next(StreamControl.create(middle, 0, false)))
+        .then(() -> frames.next(generations[0]))
+        // newborn relative to the last slice we sent
+        .expectNextSequence(cells(middle, generations[2], generations[0]).subList(9, 18))
+        .thenCancel()
+        .verify();
+
+    assertThat(frames.subscribeCount()).isEqualTo(1);
+  }
+
+  @Test
+  void framesArrivingTooSoonAreDropped() {
+    final Viewport viewport = Viewport.create(0, 0, 2, 2);
+
+    // 100 frames at 100 per second, but only 20 per second wanted
+    StepVerifier.withVirtualTime(() -> StreamControl.cells(
+        Flux.interval(Duration.ofMillis(10))
+            .map(generation -> Frame.allocate(coordinateSystem, generation.intValue()))
+            .take(100),
+        Flux.just(StreamControl.create(viewport, 20, false))))
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNextCount(20 * 4)
+        .verifyComplete();
+  }
+
+  private Frame[] generations(final int n) {
+    final Frame frame = Patterns.randomFrame(coordinateSystem, 0, 1, 0.5);
+    final Frame[] generations = new Frame[n];
+    for (int generation = 0; generation < n; generation++) {
+      generations[generation] = frame.copy();
+      FrameEngine.step(frame);
+    }
+    return generations;
+  }
+
+  private static List<Cell> cells(final Viewport viewport, final Frame... frames) {
+    return viewport.cells(Flux.just(frames)).collectList().block();
+  }
+}
@@ -0,0 +1,34 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class StreamDemandTest {
+
+  @Test
+  void unmanagedStreamIsUntouched() {
+    final StreamDemand streamDemand = StreamDemand.unmanaged();
+    final Flux<Integer> stream = Flux.range(0, 10);
+
+    assertThat(streamDemand.apply(stream, generation -> generation)).isSameAs(stream);
+    assertThat(streamDemand.getDemand()).isEqualTo(0);
+  }
+
+  @Test
+  void latestStreamsDemandIsWatched() {
+    final StreamDemand streamDemand =
+        StreamDemand.create(2, 8, Duration.ofMillis(250), Duration.ZERO);
+    final Flux<Integer> stream = streamDemand.apply(Flux.range(0, 10), generation -> generation);
+
+    assertThat(streamDemand.getDemand()).isEqualTo(0);
+    StepVerifier.create(stream)
+        .expectNextCount(10)
+        .verifyComplete();
+    assertThat(streamDemand.getDemand()).isEqualTo(2);
+  }
+}
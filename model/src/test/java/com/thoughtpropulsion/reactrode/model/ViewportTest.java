@@ -0,0 +1,88 @@
+package com.thoughtpropulsion.reactrode.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ViewportTest {
+
+  private final CoordinateSystem coordinateSystem = new CoordinateSystem(130, 70);
+
+  /*
+   Windows are chosen to start mid-word, span word boundaries, and wrap around the torus.
+   */
+  @ParameterizedTest
+  @CsvSource({
+      "0,0,130,70", "1,2,3,4", "60,0,10,70", "63,5,65,5", "120,65,20,10", "-3,-2,64,7"})
+  void sliceMatchesBoard(final int x, final int y, final int columns, final int rows) {
+    final Frame frame = randomFrame();
+
+    final Frame slice = Viewport.create(x, y, columns, rows).slice(frame);
+
+    assertThat(slice.getGeneration()).isEqualTo(frame.getGeneration());
+    long population = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        assertThat(slice.isAlive(column, row))
+            .as("x %d, y %d", column, row)
+            .isEqualTo(frame.isAlive(x + column, y + row));
+        if (frame.isAlive(x + column, y + row)) {
+          population++;
+        }
+      }
+    }
+    // padding bits must be clear
+    assertThat(slice.population()).isEqualTo(population);
+  }
+
+  @Test
+  void cellsAreInBoardCoordinates() {
+    final Frame frame = randomFrame();
+    final Viewport viewport = Viewport.create(128, 69, 3, 2);
+
+    final List<Cell> cells = viewport.toCells(viewport.slice(frame), null, coordinateSystem);
+
+    assertThat(cells).extracting(cell -> cell.coordinates).containsExactly(
+        Coordinates.create(128, 69, 0),
+        Coordinates.create(129, 69, 0),
+        Coordinates.create(0, 69, 0),
+        Coordinates.create(128, 0, 0),
+        Coordinates.create(129, 0, 0),
+        Coordinates.create(0, 0, 0));
+    assertThat(cells).extracting(cell -> cell.isAlive).containsExactly(
+        frame.isAlive(128, 69), frame.isAlive(129, 69), frame.isAlive(0, 69),
+        frame.isAlive(128, 0), frame.isAlive(129, 0), frame.isAlive(0, 0));
+  }
+
+  @Test
+  void strideSelectsGenerations() {
+    final Flux<Frame> frames = Flux.range(-1, 10)
+        .map(generation -> Frame.allocate(coordinateSystem, generation));
+
+    StepVerifier.create(Viewport.create(0, 0, 4, 4, 3).slices(frames))
+        .expectNextMatches(frame -> frame.getGeneration() == 0)
+        .expectNextMatches(frame -> frame.getGeneration() == 3)
+        .expectNextMatches(frame -> frame.getGeneration() == 6)
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void viewportLargerThanBoardIsRejected() {
+    assertThatThrownBy(() -> Viewport.create(0, 0, 131, 1).slice(randomFrame()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Frame randomFrame() {
+    return Frame.fromCells(
+        Patterns.cellsFromBits(Patterns.randomList(coordinateSystem), 0, coordinateSystem),
+        coordinateSystem);
+  }
+}
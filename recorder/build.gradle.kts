@@ -18,6 +18,7 @@ dependencies {
     implementation(enforcedPlatform(project(":bom")))
 
     implementation(project(":model"))
+    implementation(project(":codec"))
 
     implementation("org.springframework.boot:spring-boot-starter-rsocket")
 
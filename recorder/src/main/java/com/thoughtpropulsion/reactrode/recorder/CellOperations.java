@@ -69,7 +69,7 @@ public class CellOperations {
     };
   }
 
-  static Consumer<Cell> createPutCellFunction(final Region<Integer,Cell> cellsRegion) {
+  static Consumer<Cell> createPutCellFunction(final Region<Long,Cell> cellsRegion) {
     return (final Cell cell) -> cellsRegion.put(coordinateSystem.toOffset(cell.coordinates), cell);
   }
 
@@ -140,7 +140,7 @@ public class CellOperations {
 
     return Flux.from(source)
         .limitRequest(generations * coordinateSystem.size())
-        .buffer(coordinateSystem.size())
+        .buffer(coordinateSystem.intSize())
         .subscribeOn(Schedulers.parallel()) // uncomment to demonstrate BlockHound
         //        .subscribeOn(Schedulers.elastic()) // uncomment to satisfy BlockHound
         .doOnNext(
@@ -174,7 +174,7 @@ public class CellOperations {
 
     return Flux.from(source)
         .limitRequest(generations * coordinateSystem.size())
-        .buffer(coordinateSystem.size())
+        .buffer(coordinateSystem.intSize())
         .parallel(parallelism)
         // NB: gotta runOn() after parallel() to actually schedule work in parallel!
         .runOn(Schedulers.parallel()) // uncomment to demonstrate BlockHound
@@ -212,8 +212,8 @@ public class CellOperations {
       if (firstElementReceived.get() == 0)
         firstElementReceived.set(System.nanoTime());
       try {
-        final Map<Integer, Cell> entries = cells.stream().map(cell -> {
-          final int key = coordinateSystem.toOffset(cell.coordinates);
+        final Map<Long, Cell> entries = cells.stream().map(cell -> {
+          final long key = coordinateSystem.toOffset(cell.coordinates);
           return new Pair<>(key, cell);
         }).collect(toLinkedMap(pair -> pair.k, pair -> pair.v));
         seen.add(entries.size());
@@ -272,9 +272,9 @@ public class CellOperations {
     return () -> {
 
       try {
-        final Region<Integer,Cell> region = template.getRegion();
+        final Region<Long,Cell> region = template.getRegion();
         final int GENERATIONS_TO_DESTROY = 10;
-        final SelectResults<Integer> lruKeys = region.query(
+        final SelectResults<Long> lruKeys = region.query(
             String.format(
                 "SELECT key "
                     + "FROM /Cells.entrySet cell, (SELECT MIN(cell.coordinates.generation) FROM /Cells cell) oldestGeneration"
@@ -45,7 +45,7 @@ public class RecorderApplication {
       final GemfireTemplate gemfireTemplate,
       final CoordinateSystem coordinateSystem) {
 
-    final Publisher<Cell> source = recordingSubscriber.allGenerations();
+    final Publisher<Cell> source = recordingSubscriber.allGenerationsByFrame();
 
     return args ->
       Flux.from(
@@ -3,43 +3,67 @@ package com.thoughtpropulsion.reactrode.recorder.config;
 import static org.springframework.messaging.rsocket.MetadataExtractor.ROUTING;
 
 import java.net.URI;
+import java.time.Duration;
 
 import com.thoughtpropulsion.reactrode.recorder.server.RecorderServer;
 import com.thoughtpropulsion.reactrode.recorder.subscriber.RecordingSubscriber;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.codec.Transport;
 import io.rsocket.RSocket;
 import io.rsocket.RSocketFactory;
 import io.rsocket.frame.decoder.PayloadDecoder;
-import io.rsocket.transport.netty.client.WebsocketClientTransport;
+import io.rsocket.resume.InMemoryResumableFramesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.rsocket.RSocketRequester;
 import org.springframework.messaging.rsocket.RSocketStrategies;
-import org.springframework.util.MimeTypeUtils;
 
 @Configuration
 @ComponentScan(basePackageClasses = {RecordingSubscriber.class, RecorderServer.class})
 public class RecordingConfiguration {
 
+  // should match the gameserver's reactrode.resumption settings
+  private static final Duration RESUME_SESSION_DURATION = Duration.ofSeconds(30);
+  private static final int RESUME_STORE_BYTES = 4 * 1024 * 1024;
+
+  // we're a server too, so we default to TCP, which skips WebSocket's framing
   @Bean
-  public RSocket rSocket() {
+  public RSocket rSocket(
+      @Value("${reactrode.server.transport:TCP}") final Transport transport,
+      @Value("${reactrode.server.websocket-uri:ws://localhost:7000/rsocket}")
+      final URI websocketUri,
+      @Value("${reactrode.server.tcp-host:localhost}") final String tcpHost,
+      @Value("${reactrode.server.tcp-port:7002}") final int tcpPort) {
 
     return RSocketFactory.connect()
+        // if the connection drops, reconnect and resume our streams where they left off
+        .resume()
+        .resumeSessionDuration(RESUME_SESSION_DURATION)
+        .resumeStore(token -> new InMemoryResumableFramesStore("client", RESUME_STORE_BYTES))
 //        .keepAlive(Duration.ofSeconds(20),Duration.ofSeconds(150),3)
-        .mimeType(ROUTING.toString(), MimeTypeUtils.APPLICATION_JSON.toString())
+        // binary payloads are a fraction of the size of JSON ones, and quicker to code
+        .mimeType(ROUTING.toString(), BinaryCodecs.MIME_TYPE.toString())
         .frameDecoder(PayloadDecoder.ZERO_COPY)
-        .transport(WebsocketClientTransport.create(URI.create("ws://localhost:7000/rsocket")))
+        .transport(transport.clientTransport(websocketUri, tcpHost, tcpPort))
         .start()
         .block();
   }
 
   @Bean
-  RSocketRequester rSocketRequester(RSocketStrategies rSocketStrategies) {
+  RSocketRequester rSocketRequester(RSocketStrategies rSocketStrategies, RSocket rSocket) {
     return RSocketRequester.wrap(
-        rSocket(),
-        MimeTypeUtils.APPLICATION_JSON,
+        rSocket,
+        BinaryCodecs.MIME_TYPE,
         ROUTING,
         rSocketStrategies);
   }
 
+  @Bean
+  public RSocketStrategiesCustomizer rSocketStrategiesCustomizer(final ObjectMapper objectMapper) {
+    return strategies -> BinaryCodecs.register(strategies, objectMapper);
+  }
 }
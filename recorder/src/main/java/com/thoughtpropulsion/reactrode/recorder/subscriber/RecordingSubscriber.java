@@ -1,17 +1,63 @@
 package com.thoughtpropulsion.reactrode.recorder.subscriber;
 
+import java.time.Duration;
+
+import com.thoughtpropulsion.reactrode.model.AdaptiveDemand;
 import com.thoughtpropulsion.reactrode.model.Cell;
 import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.GapException;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameOfLife;
+import com.thoughtpropulsion.reactrode.model.StreamDemand;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.rsocket.RSocketRequester;
 import org.springframework.stereotype.Component;
 
 @Component
 public class RecordingSubscriber {
   private final RSocketRequester rSocketRequester;
+  private final StreamDemand streamDemand;
 
+  /**
+   * Streams take as much as their subscribers request, e.g. via {@code limitRate()}.
+   */
   public RecordingSubscriber(final RSocketRequester rSocketRequester) {
     this.rSocketRequester = rSocketRequester;
+    this.streamDemand = StreamDemand.unmanaged();
+  }
+
+  /**
+   * Streams of generations request as many whole generations as we can consume over
+   * {@param horizonMillis}, but no fewer than {@param minimumGenerations} and no more than
+   * {@param maximumGenerations}. See {@link AdaptiveDemand}. Their demand is logged every
+   * {@param reportSeconds}, or not at all if that's 0.
+   */
+  @Autowired
+  public RecordingSubscriber(
+      final RSocketRequester rSocketRequester,
+      @Value("${reactrode.demand.adaptive:true}") final boolean adaptiveDemand,
+      @Value("${reactrode.demand.minimum-generations:2}") final int minimumGenerations,
+      @Value("${reactrode.demand.maximum-generations:8}") final int maximumGenerations,
+      @Value("${reactrode.demand.horizon-millis:250}") final long horizonMillis,
+      @Value("${reactrode.demand.report-seconds:10}") final long reportSeconds) {
+    this.rSocketRequester = rSocketRequester;
+    this.streamDemand = adaptiveDemand
+        ? StreamDemand.create(minimumGenerations, maximumGenerations,
+            Duration.ofMillis(horizonMillis), Duration.ofSeconds(reportSeconds))
+        : StreamDemand.unmanaged();
+  }
+
+  /**
+   * @return the elements (cells or frames) the latest stream is keeping requested, or 0 if
+   * demand isn't adaptive
+   */
+  public long getDemand() {
+    return streamDemand.getDemand();
   }
 
   public Publisher<Cell> allGenerations() {
@@ -22,7 +68,46 @@ public class RecordingSubscriber {
          TODO: figure out why, if I have to provide a parameter, I can't send a String
          */
         .data(Coordinates.create(0,0,0))
-        .retrieveFlux(Cell.class);
+        .retrieveFlux(Cell.class)
+        .as(cells -> streamDemand.apply(cells, cell -> cell.coordinates.generation));
+  }
+
+  /**
+   * The same cells as {@link #allGenerations()} but delivered one generation (frame) per payload.
+   */
+  public Publisher<Cell> allGenerationsByFrame() {
+    return GameOfLife.toCells(allFrames());
   }
 
+  public Publisher<Frame> allFrames() {
+    return rSocketRequester
+        .route("/rsocket/all-frames")
+        .data(Empty.create())
+        .retrieveFlux(Frame.class)
+        .as(frames -> streamDemand.apply(frames, Frame::getGeneration));
+  }
+
+  /**
+   * Frames after {@param generation}, e.g. the last one we saw before losing our connection.
+   */
+  public Publisher<Frame> allFramesAfter(final int generation) {
+    return rSocketRequester
+        .route("/rsocket/all-frames/after/" + generation)
+        .data(Empty.create())
+        .retrieveFlux(Frame.class)
+        .as(frames -> streamDemand.apply(frames, Frame::getGeneration));
+  }
+
+  /**
+   * The same frames as {@link #allFrames()}, sent as compressed deltas. If we detect a gap we
+   * resync by requesting a new stream, which starts with a keyframe.
+   */
+  public Publisher<Frame> allFramesByDelta(final Compression compression) {
+    return DeltaFrame.decode(
+        rSocketRequester
+            .route("/rsocket/deltas/" + compression)
+            .data(Empty.create())
+            .retrieveFlux(DeltaFrame.class))
+        .retry(GapException.class::isInstance);
+  }
 }
@@ -62,7 +62,7 @@ public class RecorderServerCQTest extends
 
   @SuppressWarnings("all")
   @Resource(name = "Cells")
-  private Region<Integer, Cell> cells;
+  private Region<Long, Cell> cells;
 
   @Test
   public void simpleCQ() {
@@ -82,7 +82,7 @@ public class RecorderServerCQTest extends
     final Cell
         cell =
         Cell.createAlive(coordinateSystem.createCoordinates(0, 0, PRIMORDIAL_GENERATION), true);
-    final int key = coordinateSystem.toOffset(cell.coordinates);
+    final long key = coordinateSystem.toOffset(cell.coordinates);
     cells.put(key, cell);
   }
 
@@ -100,10 +100,10 @@ public class RecorderServerCQTest extends
     }
 
     @Bean("Cells")
-    public ClientRegionFactoryBean<Integer, Cell> cellsRegion(
+    public ClientRegionFactoryBean<Long, Cell> cellsRegion(
         GemFireCache gemfireCache) {
 
-      ClientRegionFactoryBean<Integer, Cell> cellsRegion =
+      ClientRegionFactoryBean<Long, Cell> cellsRegion =
           new ClientRegionFactoryBean<>();
 
       cellsRegion.setCache(gemfireCache);
@@ -116,10 +116,10 @@ public class RecorderServerReplicatedRegionTest extends
   static class GeodeClientConfiguration {
 
     @Bean("Cells")
-    public ClientRegionFactoryBean<Integer, Cell> cellsRegion(
+    public ClientRegionFactoryBean<Long, Cell> cellsRegion(
         GemFireCache gemfireCache) {
 
-      ClientRegionFactoryBean<Integer, Cell> cellsRegion =
+      ClientRegionFactoryBean<Long, Cell> cellsRegion =
           new ClientRegionFactoryBean<>();
 
       cellsRegion.setCache(gemfireCache);
@@ -45,10 +45,10 @@ public class GeodeTestServerConfigurationManualEvictionAndCQ {
   }
 
   @Bean("Cells")
-  public ReplicatedRegionFactoryBean<Integer, Cell> cellsRegion(GemFireCache gemfireCache) {
+  public ReplicatedRegionFactoryBean<Long, Cell> cellsRegion(GemFireCache gemfireCache) {
     System.out.println("Geode Server using Java version: " + System.getProperty("java.version") );
 
-    ReplicatedRegionFactoryBean<Integer, Cell> factory =
+    ReplicatedRegionFactoryBean<Long, Cell> factory =
         new ReplicatedRegionFactoryBean<>();
 
     factory.setCache(gemfireCache);
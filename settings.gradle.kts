@@ -1,5 +1,5 @@
 rootProject.name = "reactrode"
-include("bom", "model","gameserver","geodeconfig","geodeserver","recorder","testclient","webapp")
+include("bom", "model","codec","gameserver","geodeconfig","geodeserver","recorder","testclient","webapp")
 
 pluginManagement {
     repositories {
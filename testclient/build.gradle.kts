@@ -18,9 +18,11 @@ dependencies {
     implementation(enforcedPlatform(project(":bom")))
 
     implementation(project(":model"))
+    implementation(project(":codec"))
 
     implementation("org.springframework.boot:spring-boot-starter")
     implementation("org.springframework.boot:spring-boot-starter-rsocket")
+    implementation("org.hdrhistogram:HdrHistogram")
 
     developmentOnly("org.springframework.boot:spring-boot-devtools")
 
@@ -1,18 +1,65 @@
 package com.thoughtpropulsion.reactrode.client;
 
+import java.time.Duration;
+
+import com.thoughtpropulsion.reactrode.model.AdaptiveDemand;
 import com.thoughtpropulsion.reactrode.model.Cell;
 import com.thoughtpropulsion.reactrode.model.Coordinates;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.GapException;
 import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import com.thoughtpropulsion.reactrode.model.GameOfLife;
+import com.thoughtpropulsion.reactrode.model.StreamControl;
+import com.thoughtpropulsion.reactrode.model.StreamDemand;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.rsocket.RSocketRequester;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 @Component
 public class LifeClient {
   private final RSocketRequester rSocketRequester;
+  private final StreamDemand streamDemand;
 
+  /**
+   * Streams take as much as their subscribers request, e.g. via {@code limitRate()}.
+   */
   public LifeClient(final RSocketRequester rSocketRequester) {
     this.rSocketRequester = rSocketRequester;
+    this.streamDemand = StreamDemand.unmanaged();
+  }
+
+  /**
+   * Streams of generations request as many whole generations as we can consume over
+   * {@param horizonMillis}, but no fewer than {@param minimumGenerations} and no more than
+   * {@param maximumGenerations}. See {@link AdaptiveDemand}. Their demand is logged every
+   * {@param reportSeconds}, or not at all if that's 0.
+   */
+  @Autowired
+  public LifeClient(
+      final RSocketRequester rSocketRequester,
+      @Value("${reactrode.demand.adaptive:true}") final boolean adaptiveDemand,
+      @Value("${reactrode.demand.minimum-generations:2}") final int minimumGenerations,
+      @Value("${reactrode.demand.maximum-generations:8}") final int maximumGenerations,
+      @Value("${reactrode.demand.horizon-millis:250}") final long horizonMillis,
+      @Value("${reactrode.demand.report-seconds:10}") final long reportSeconds) {
+    this.rSocketRequester = rSocketRequester;
+    this.streamDemand = adaptiveDemand
+        ? StreamDemand.create(minimumGenerations, maximumGenerations,
+            Duration.ofMillis(horizonMillis), Duration.ofSeconds(reportSeconds))
+        : StreamDemand.unmanaged();
+  }
+
+  /**
+   * @return the elements (cells or frames) the latest stream is keeping requested, or 0 if
+   * demand isn't adaptive
+   */
+  public long getDemand() {
+    return streamDemand.getDemand();
   }
 
   public Publisher<Cell> allGenerations() {
@@ -23,6 +70,57 @@ public class LifeClient {
          TODO: figure out why, if I have to provide a parameter, I can't send a String
          */
         .data(Coordinates.create(0,0,0))
+        .retrieveFlux(Cell.class)
+        .as(cells -> streamDemand.apply(cells, cell -> cell.coordinates.generation));
+  }
+
+  /**
+   * The same cells as {@link #allGenerations()} but delivered one generation (frame) per payload.
+   */
+  public Publisher<Cell> allGenerationsByFrame() {
+    return GameOfLife.toCells(allFrames());
+  }
+
+  public Publisher<Frame> allFrames() {
+    return rSocketRequester
+        .route("/rsocket/all-frames")
+        .data(Empty.create())
+        .retrieveFlux(Frame.class)
+        .as(frames -> streamDemand.apply(frames, Frame::getGeneration));
+  }
+
+  /**
+   * Frames after {@param generation}, e.g. the last one we saw before losing our connection.
+   */
+  public Publisher<Frame> allFramesAfter(final int generation) {
+    return rSocketRequester
+        .route("/rsocket/all-frames/after/" + generation)
+        .data(Empty.create())
+        .retrieveFlux(Frame.class)
+        .as(frames -> streamDemand.apply(frames, Frame::getGeneration));
+  }
+
+  /**
+   * The same frames as {@link #allFrames()}, sent as compressed deltas. If we detect a gap we
+   * resync by requesting a new stream, which starts with a keyframe.
+   */
+  public Publisher<Frame> allFramesByDelta(final Compression compression) {
+    return DeltaFrame.decode(
+        rSocketRequester
+            .route("/rsocket/deltas/" + compression)
+            .data(Empty.create())
+            .retrieveFlux(DeltaFrame.class))
+        .retry(GapException.class::isInstance);
+  }
+
+  /**
+   * Cells as asked for by the latest of {@param controls}. Send a new control to pan, zoom, change
+   * rate or pause without resubscribing.
+   */
+  public Publisher<Cell> channel(final Publisher<StreamControl> controls) {
+    return rSocketRequester
+        .route("/rsocket/channel")
+        .data(controls, StreamControl.class)
         .retrieveFlux(Cell.class);
   }
 
@@ -33,4 +131,10 @@ public class LifeClient {
         .retrieveFlux(Empty.class);
   }
 
+  public Mono<Empty> ping() {
+    return rSocketRequester
+        .route("/rsocket/ping")
+        .data(Empty.create())
+        .retrieveMono(Empty.class);
+  }
 }
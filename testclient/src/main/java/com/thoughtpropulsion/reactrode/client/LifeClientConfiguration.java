@@ -5,39 +5,81 @@ import static org.springframework.messaging.rsocket.MetadataExtractor.ROUTING;
 import java.net.URI;
 import java.time.Duration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.codec.Transport;
 import io.rsocket.RSocket;
 import io.rsocket.RSocketFactory;
 import io.rsocket.frame.decoder.PayloadDecoder;
-import io.rsocket.transport.netty.client.WebsocketClientTransport;
+import io.rsocket.resume.InMemoryResumableFramesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.rsocket.RSocketRequester;
 import org.springframework.messaging.rsocket.RSocketStrategies;
-import org.springframework.util.MimeTypeUtils;
 
 @Configuration
 public class LifeClientConfiguration {
 
+  // should match the gameserver's reactrode.resumption settings
+  private static final Duration RESUME_SESSION_DURATION = Duration.ofSeconds(30);
+  private static final int RESUME_STORE_BYTES = 4 * 1024 * 1024;
+
+  private final URI websocketUri;
+  private final String tcpHost;
+  private final int tcpPort;
+
+  public LifeClientConfiguration(
+      @Value("${reactrode.server.websocket-uri:ws://localhost:7000/rsocket}")
+      final URI websocketUri,
+      @Value("${reactrode.server.tcp-host:localhost}") final String tcpHost,
+      @Value("${reactrode.server.tcp-port:7002}") final int tcpPort) {
+    this.websocketUri = websocketUri;
+    this.tcpHost = tcpHost;
+    this.tcpPort = tcpPort;
+  }
+
+  @Bean
+  public RSocket rSocket(
+      @Value("${reactrode.server.transport:WEBSOCKET}") final Transport transport) {
+    return connect(transport);
+  }
+
+  @Bean
+  RSocketRequester rSocketRequester(final RSocketStrategies rSocketStrategies, final RSocket rSocket) {
+    return requester(rSocket, rSocketStrategies);
+  }
 
   @Bean
-  public RSocket rSocket() {
+  public RSocketStrategiesCustomizer rSocketStrategiesCustomizer(final ObjectMapper objectMapper) {
+    return strategies -> BinaryCodecs.register(strategies, objectMapper);
+  }
 
+  /**
+   * A new connection to the gameserver over {@param transport}. The caller disposes of it.
+   */
+  public RSocket connect(final Transport transport) {
     return RSocketFactory.connect()
+        // if the connection drops, reconnect and resume our streams where they left off
+        .resume()
+        .resumeSessionDuration(RESUME_SESSION_DURATION)
+        .resumeStore(token -> new InMemoryResumableFramesStore("client", RESUME_STORE_BYTES))
 //        .keepAlive(Duration.ofSeconds(20),Duration.ofSeconds(150),3)
-        .mimeType(ROUTING.toString(), MimeTypeUtils.APPLICATION_JSON.toString())
+        // binary payloads are a fraction of the size of JSON ones, and quicker to code
+        .mimeType(ROUTING.toString(), BinaryCodecs.MIME_TYPE.toString())
         .frameDecoder(PayloadDecoder.ZERO_COPY)
-        .transport(WebsocketClientTransport.create(URI.create("ws://localhost:7000/rsocket")))
+        .transport(transport.clientTransport(websocketUri, tcpHost, tcpPort))
         .start()
         .block();
   }
 
-  @Bean
-  RSocketRequester rSocketRequester(final RSocketStrategies rSocketStrategies, final RSocket rSocket) {
+  public static RSocketRequester requester(final RSocket rSocket,
+                                           final RSocketStrategies rSocketStrategies) {
     return RSocketRequester.wrap(
         rSocket,
-        MimeTypeUtils.APPLICATION_JSON,
+        BinaryCodecs.MIME_TYPE,
         ROUTING,
         rSocketStrategies);
   }
-
 }
@@ -0,0 +1,231 @@
+package com.thoughtpropulsion.reactrode.client;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.thoughtpropulsion.reactrode.codec.Transport;
+import com.thoughtpropulsion.reactrode.model.Frame;
+import io.rsocket.RSocket;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Simulates many browser-like clients at once: N connections to the gameserver, each with some
+ * streams, each stream asking for so many generations at a time (request-n) and taking so long
+ * to consume (e.g. draw) each one.
+ *
+ * For every generation a stream consumes we record its delivery latency: how long after the
+ * server sent that generation this stream got round to consuming it. Frames don't carry a send
+ * time, so given the interval at which the server releases generations (e.g. its pacing) we
+ * derive one: generation g is due at origin + g x interval, where the origin is the earliest that
+ * fits every arrival we've seen. A server that falls behind that schedule, or a network that
+ * delays every stream alike, shows up as latency. Without an interval, latency is measured from
+ * when the first of our streams received the generation, which only shows what fan-out,
+ * backpressure and slow consumption add.
+ *
+ * A stream that falls behind consumes (and records) less often, which would hide exactly the
+ * latencies we're looking for: coordinated omission. Given the interval at which the server
+ * releases generations (e.g. its pacing), we correct for that by recording the generations the
+ * stream would have consumed meanwhile, with HdrHistogram's
+ * {@link Histogram#recordValueWithExpectedInterval}.
+ */
+public class LoadGenerator {
+
+  public enum Stream {
+    // one payload per generation: allFrames()
+    FRAMES,
+    // one payload per cell: allGenerations()
+    CELLS
+  }
+
+  // forget when generations were first seen once they're this far behind the latest
+  private static final int FIRST_SEEN_GENERATIONS = 1024;
+  // and check for ones to forget every this many records
+  private static final int PRUNE_RECORDS = 1024;
+  // connect this many at a time
+  private static final int CONNECT_CONCURRENCY = 32;
+
+  private final LifeClientConfiguration configuration;
+  private final RSocketStrategies rSocketStrategies;
+  private final Transport transport;
+  private final Stream stream;
+  private final int connections;
+  private final int streamsPerConnection;
+  private final int requestN;
+  private final Duration consumeTime;
+  private final Duration expectedInterval;
+  private final Duration duration;
+
+  private final ConcurrentMap<Integer, Long> firstSeen = new ConcurrentHashMap<>();
+  // when generation 0 was due, in System.nanoTime(), if we know the expected interval
+  private final AtomicLong origin = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicInteger latestSeen = new AtomicInteger(Integer.MIN_VALUE);
+  private final AtomicLong records = new AtomicLong();
+  private final Histogram latencies = new ConcurrentHistogram(3);
+  private final LongAdder skipped = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+
+  public LoadGenerator(final LifeClientConfiguration configuration,
+                       final RSocketStrategies rSocketStrategies, final Transport transport,
+                       final Stream stream, final int connections,
+                       final int streamsPerConnection, final int requestN,
+                       final Duration consumeTime, final Duration expectedInterval,
+                       final Duration duration) {
+    if (connections < 1 || streamsPerConnection < 1 || requestN < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Expected at least one connection, stream per connection and request but got %d, %d "
+              + "and %d", connections, streamsPerConnection, requestN));
+    }
+    this.configuration = configuration;
+    this.rSocketStrategies = rSocketStrategies;
+    this.transport = transport;
+    this.stream = stream;
+    this.connections = connections;
+    this.streamsPerConnection = streamsPerConnection;
+    this.requestN = requestN;
+    this.consumeTime = consumeTime;
+    this.expectedInterval = expectedInterval;
+    this.duration = duration;
+  }
+
+  /**
+   * Connect, stream for the duration, disconnect, and report. Blocks throughout.
+   */
+  public LoadReport run() {
+    final List<RSocket> rSockets = Flux.range(0, connections)
+        .flatMap(_i -> Mono.fromCallable(() -> configuration.connect(transport))
+            .subscribeOn(Schedulers.elastic()), CONNECT_CONCURRENCY)
+        .collectList()
+        .block();
+    try {
+      final long starting = System.nanoTime();
+      final long consumed = Flux.fromIterable(rSockets)
+          .map(rSocket -> new LifeClient(
+              LifeClientConfiguration.requester(rSocket, rSocketStrategies)))
+          .flatMap(client -> Flux.range(0, streamsPerConnection).map(_i -> client))
+          .flatMap(this::consume, connections * streamsPerConnection)
+          .take(duration)
+          .count()
+          .block();
+      final long elapsed = System.nanoTime() - starting;
+      return report(consumed, elapsed);
+    } finally {
+      rSockets.forEach(RSocket::dispose);
+    }
+  }
+
+  /*
+   One stream: the generations it consumes, recording the latency of each.
+   */
+  private Flux<Integer> consume(final LifeClient client) {
+    final AtomicInteger arrived = new AtomicInteger(Integer.MIN_VALUE);
+    final AtomicInteger last = new AtomicInteger(Integer.MIN_VALUE);
+    return generations(client)
+        .doOnNext(generation -> {
+          if (arrived.getAndSet(generation) != generation) {
+            arrived(generation, System.nanoTime());
+          }
+        })
+        .limitRate(requestN)
+        .distinctUntilChanged()
+        .concatMap(generation -> {
+          record(generation, last);
+          return consumeTime.isZero()
+              ? Mono.just(generation)
+              : Mono.delay(consumeTime).thenReturn(generation);
+        }, 1)
+        .onErrorResume(e -> {
+          errors.increment();
+          return Mono.empty();
+        });
+  }
+
+  private Flux<Integer> generations(final LifeClient client) {
+    switch (stream) {
+      case FRAMES:
+        return Flux.from(client.allFrames()).map(Frame::getGeneration);
+      case CELLS:
+        return Flux.from(client.allGenerations()).map(cell -> cell.coordinates.generation);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown stream %s", stream));
+    }
+  }
+
+  /*
+   A stream received generation at nanos.
+   */
+  private void arrived(final int generation, final long nanos) {
+    if (expectedInterval.isZero()) {
+      firstSeen.merge(generation, nanos, Math::min);
+      latestSeen.accumulateAndGet(generation, Math::max);
+    } else {
+      origin.accumulateAndGet(nanos - generation * expectedInterval.toNanos(), Math::min);
+    }
+  }
+
+  /*
+   When the server sent generation, as best we can tell.
+   */
+  private long sent(final int generation, final long now) {
+    if (expectedInterval.isZero()) {
+      return firstSeen.getOrDefault(generation, now);
+    } else {
+      return origin.get() + generation * expectedInterval.toNanos();
+    }
+  }
+
+  private void record(final int generation, final AtomicInteger last) {
+    final long now = System.nanoTime();
+    final long sent = sent(generation, now);
+    final int previous = last.getAndSet(generation);
+    if (previous != Integer.MIN_VALUE && generation > previous + 1) {
+      skipped.add(generation - previous - 1);
+    }
+    // another stream may have got it a moment sooner but noted it a moment later
+    final long latency = TimeUnit.NANOSECONDS.toMicros(Math.max(now - sent, 0));
+    if (expectedInterval.isZero()) {
+      latencies.recordValue(latency);
+    } else {
+      latencies.recordValueWithExpectedInterval(latency, expectedInterval.toNanos() / 1_000);
+    }
+    // streams skip generations, so prune by the count of records, not by generation number
+    if (records.incrementAndGet() % PRUNE_RECORDS == 0) {
+      final int oldest = latestSeen.get() - FIRST_SEEN_GENERATIONS;
+      firstSeen.keySet().removeIf(seen -> seen < oldest);
+    }
+  }
+
+  private LoadReport report(final long consumed, final long elapsedNanos) {
+    final Histogram snapshot = latencies.copy();
+    final Map<String, Long> percentiles = new LinkedHashMap<>();
+    for (final String percentile : new String[]{"50", "90", "99", "99.9", "99.99"}) {
+      percentiles.put("p" + percentile,
+          snapshot.getValueAtPercentile(Double.parseDouble(percentile)));
+    }
+    percentiles.put("max", snapshot.getMaxValue());
+    final ByteBuffer encoded = ByteBuffer.allocate(snapshot.getNeededByteBufferCapacity());
+    final int length = snapshot.encodeIntoCompressedByteBuffer(encoded);
+    final String histogram =
+        Base64.getEncoder().encodeToString(Arrays.copyOf(encoded.array(), length));
+    final double seconds = elapsedNanos / 1_000_000_000.0;
+    return new LoadReport(transport, stream, connections, streamsPerConnection, requestN,
+        consumeTime.toMillis(), expectedInterval.toMillis(), seconds, consumed,
+        skipped.sum(), errors.sum(), consumed / seconds / (connections * streamsPerConnection),
+        snapshot.getTotalCount(), percentiles, histogram);
+  }
+}
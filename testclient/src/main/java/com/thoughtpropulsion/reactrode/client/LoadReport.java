@@ -0,0 +1,79 @@
+package com.thoughtpropulsion.reactrode.client;
+
+import java.util.Map;
+
+import com.thoughtpropulsion.reactrode.client.LoadGenerator.Stream;
+import com.thoughtpropulsion.reactrode.codec.Transport;
+
+/**
+ * What a {@link LoadGenerator} run did and saw, written out as JSON for comparing runs.
+ *
+ * Latencies are in microseconds. {@link #histogram} is the whole latency histogram, in
+ * HdrHistogram's compressed encoding (base64), so runs can be merged or re-plotted later.
+ */
+public class LoadReport {
+  public final Transport transport;
+  public final Stream stream;
+  public final int connections;
+  public final int streamsPerConnection;
+  public final int requestN;
+  public final long consumeMillis;
+  // 0 if we didn't correct for coordinated omission
+  public final long expectedIntervalMillis;
+  public final double seconds;
+  // generations consumed, by all streams together
+  public final long generations;
+  // generations streams never got, e.g. because the server dropped them to keep up
+  public final long skippedGenerations;
+  public final long errors;
+  public final double generationsPerSecondPerStream;
+  // including any added to correct for coordinated omission
+  public final long latencySamples;
+  public final Map<String, Long> latencyMicros;
+  public final String histogram;
+
+  public LoadReport(final Transport transport, final Stream stream, final int connections,
+                    final int streamsPerConnection, final int requestN,
+                    final long consumeMillis, final long expectedIntervalMillis,
+                    final double seconds, final long generations,
+                    final long skippedGenerations, final long errors,
+                    final double generationsPerSecondPerStream, final long latencySamples,
+                    final Map<String, Long> latencyMicros, final String histogram) {
+    this.transport = transport;
+    this.stream = stream;
+    this.connections = connections;
+    this.streamsPerConnection = streamsPerConnection;
+    this.requestN = requestN;
+    this.consumeMillis = consumeMillis;
+    this.expectedIntervalMillis = expectedIntervalMillis;
+    this.seconds = seconds;
+    this.generations = generations;
+    this.skippedGenerations = skippedGenerations;
+    this.errors = errors;
+    this.generationsPerSecondPerStream = generationsPerSecondPerStream;
+    this.latencySamples = latencySamples;
+    this.latencyMicros = latencyMicros;
+    this.histogram = histogram;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("LoadReport{");
+    sb.append("transport=").append(transport);
+    sb.append(", stream=").append(stream);
+    sb.append(", connections=").append(connections);
+    sb.append(", streamsPerConnection=").append(streamsPerConnection);
+    sb.append(", requestN=").append(requestN);
+    sb.append(", consumeMillis=").append(consumeMillis);
+    sb.append(", expectedIntervalMillis=").append(expectedIntervalMillis);
+    sb.append(", seconds=").append(seconds);
+    sb.append(", generations=").append(generations);
+    sb.append(", skippedGenerations=").append(skippedGenerations);
+    sb.append(", errors=").append(errors);
+    sb.append(", generationsPerSecondPerStream=").append(generationsPerSecondPerStream);
+    sb.append(", latencySamples=").append(latencySamples);
+    sb.append(", latencyMicros=").append(latencyMicros);
+    sb.append('}');
+    return sb.toString();
+  }
+}
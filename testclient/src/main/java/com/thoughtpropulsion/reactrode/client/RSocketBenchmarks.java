@@ -0,0 +1,305 @@
+package com.thoughtpropulsion.reactrode.client;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.codec.BinaryCodecs;
+import com.thoughtpropulsion.reactrode.codec.BinaryDecoder;
+import com.thoughtpropulsion.reactrode.codec.BinaryEncoder;
+import com.thoughtpropulsion.reactrode.model.CoordinateSystem;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame;
+import com.thoughtpropulsion.reactrode.model.DeltaFrame.Compression;
+import com.thoughtpropulsion.reactrode.model.Empty;
+import com.thoughtpropulsion.reactrode.model.Patterns;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.client.TcpClientTransport;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import io.rsocket.util.EmptyPayload;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+/**
+ * Where are the transport's ceilings? Payloads per second, and bytes per second, between an
+ * in-process RSocket server and client over loopback TCP, for every combination of:
+ *
+ * <ul>
+ *   <li>interaction: request-stream, request-channel (one response per request) or
+ *   fire-and-forget</li>
+ *   <li>payload size: from nothing (an {@link Empty}) up to 1MB (an uncompressed
+ *   {@link DeltaFrame} keyframe)</li>
+ *   <li>codec: JSON or binary (see {@link BinaryCodecs})</li>
+ *   <li>demand: unbounded, or in batches via {@code limitRate()}, down to one at a time</li>
+ * </ul>
+ *
+ * Like the gameserver, the sender encodes every payload and the receiver decodes it. There's no
+ * engine, no routing and no Spring messaging involved, so if the gameserver is much slower than
+ * this, look there first.
+ *
+ * Payload contents come from a fixed seed and the cases always run in the same order, with the
+ * same counts, after warming up. Each line reports the median of several runs.
+ */
+public class RSocketBenchmarks {
+
+  public enum Interaction {
+    REQUEST_STREAM,
+    REQUEST_CHANNEL,
+    FIRE_AND_FORGET
+  }
+
+  public enum Codec {
+    JSON,
+    BINARY
+  }
+
+  public enum Demand {
+    UNBOUNDED(0),
+    BATCHES_OF_256(256),
+    BATCHES_OF_16(16),
+    ONE_AT_A_TIME(1);
+
+    // for limitRate(). 0 for no limit
+    final int batch;
+
+    Demand(final int batch) {
+      this.batch = batch;
+    }
+  }
+
+  private static final int[] PAYLOAD_SIZES = {0, 1024, 64 * 1024, 1024 * 1024};
+  // enough payloads to be worth timing, without spending minutes on the big ones
+  private static final long BYTES_PER_RUN = 256L * 1024 * 1024;
+  private static final int MINIMUM_PAYLOADS = 200;
+  private static final int MAXIMUM_PAYLOADS = 100_000;
+  private static final int WARMUP_RUNS = 2;
+  private static final int RUNS = 5;
+  private static final long SEED = 1;
+  // frames this wide have 64 bytes per row, so we can make frames of any multiple of that
+  private static final int COLUMNS = 512;
+  private static final int FIRE_AND_FORGET_CONCURRENCY = 256;
+
+  private final NettyDataBufferFactory bufferFactory =
+      new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+  private final ObjectMapper objectMapper;
+  private final AtomicReference<Run> current = new AtomicReference<>();
+
+  public RSocketBenchmarks(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Run every case, printing one line per case to {@param out}. Blocks throughout.
+   */
+  public void run(final PrintStream out) {
+    final CloseableChannel server = RSocketFactory.receive()
+        .frameDecoder(PayloadDecoder.ZERO_COPY)
+        .acceptor((setup, sendingSocket) -> Mono.just(new Responder()))
+        .transport(TcpServerTransport.create("localhost", 0))
+        .start()
+        .block();
+    final RSocket client = RSocketFactory.connect()
+        .frameDecoder(PayloadDecoder.ZERO_COPY)
+        .transport(TcpClientTransport.create(server.address()))
+        .start()
+        .block();
+    try {
+      out.println(String.format(Locale.ROOT, "%-16s %8s %-7s %-15s %9s %14s %10s",
+          "interaction", "bytes", "codec", "demand", "payloads", "payloads/s", "MB/s"));
+      for (final Interaction interaction : Interaction.values()) {
+        for (final int size : PAYLOAD_SIZES) {
+          for (final Codec codec : Codec.values()) {
+            for (final Demand demand : Demand.values()) {
+              // we don't get to ask for fire-and-forget
+              if (interaction == Interaction.FIRE_AND_FORGET && demand != Demand.UNBOUNDED) {
+                continue;
+              }
+              final int payloads = payloads(size);
+              final double perSecond =
+                  measure(client, new Run(interaction, codec, demand, value(size), payloads));
+              out.println(String.format(Locale.ROOT, "%-16s %8d %-7s %-15s %9d %14.0f %10.1f",
+                  interaction, size, codec, demand, payloads, perSecond,
+                  perSecond * size / (1024 * 1024)));
+            }
+          }
+        }
+      }
+    } finally {
+      client.dispose();
+      server.dispose();
+    }
+  }
+
+  /*
+   The median payloads per second, after warming up.
+   */
+  private double measure(final RSocket client, final Run run) {
+    current.set(run);
+    final double[] perSecond = new double[RUNS];
+    for (int i = -WARMUP_RUNS; i < RUNS; i++) {
+      run.received.set(0);
+      run.allReceived = MonoProcessor.create();
+      final long starting = System.nanoTime();
+      exchange(client, run);
+      final long elapsed = System.nanoTime() - starting;
+      if (i >= 0) {
+        perSecond[i] = run.payloads * 1_000_000_000.0 / elapsed;
+      }
+    }
+    Arrays.sort(perSecond);
+    return perSecond[RUNS / 2];
+  }
+
+  private void exchange(final RSocket client, final Run run) {
+    switch (run.interaction) {
+      case REQUEST_STREAM:
+        limitRate(client.requestStream(EmptyPayload.INSTANCE), run.demand)
+            .doOnNext(payload -> decode(payload, run))
+            .blockLast();
+        break;
+      case REQUEST_CHANNEL:
+        limitRate(client.requestChannel(
+            Flux.range(0, run.payloads).<Payload>map(_i -> EmptyPayload.INSTANCE)), run.demand)
+            .doOnNext(payload -> decode(payload, run))
+            .blockLast();
+        break;
+      case FIRE_AND_FORGET:
+        Flux.range(0, run.payloads)
+            .flatMap(_i -> client.fireAndForget(encode(run)), FIRE_AND_FORGET_CONCURRENCY)
+            .then(run.allReceived)
+            .block();
+        break;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Unknown interaction %s", run.interaction));
+    }
+  }
+
+  private static Flux<Payload> limitRate(final Flux<Payload> payloads, final Demand demand) {
+    return demand.batch == 0 ? payloads : payloads.limitRate(demand.batch);
+  }
+
+  /*
+   The other end: encodes what we ask for, decodes what we send it.
+   */
+  private class Responder extends AbstractRSocket {
+    @Override
+    public Flux<Payload> requestStream(final Payload request) {
+      request.release();
+      final Run run = current.get();
+      return Flux.range(0, run.payloads).map(_i -> encode(run));
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(final Publisher<Payload> requests) {
+      final Run run = current.get();
+      return Flux.from(requests).map(request -> {
+        request.release();
+        return encode(run);
+      });
+    }
+
+    @Override
+    public Mono<Void> fireAndForget(final Payload payload) {
+      final Run run = current.get();
+      decode(payload, run);
+      if (run.received.incrementAndGet() == run.payloads) {
+        run.allReceived.onComplete();
+      }
+      return Mono.empty();
+    }
+  }
+
+  private Payload encode(final Run run) {
+    return ByteBufPayload.create(NettyDataBufferFactory.toByteBuf(run.encoder.encodeValue(
+        run.value, bufferFactory, run.type, run.mimeType, Collections.emptyMap())));
+  }
+
+  private void decode(final Payload payload, final Run run) {
+    try {
+      // the decoder releases the buffer it decodes
+      run.decoder.decode(bufferFactory.wrap(payload.sliceData().retain()), run.type,
+          run.mimeType, Collections.emptyMap());
+    } finally {
+      payload.release();
+    }
+  }
+
+  private static int payloads(final int size) {
+    return (int) Math.max(MINIMUM_PAYLOADS,
+        Math.min(MAXIMUM_PAYLOADS, BYTES_PER_RUN / Math.max(size, 1)));
+  }
+
+  /*
+   Something that encodes (in binary) to about size bytes.
+   */
+  private static Object value(final int size) {
+    if (size == 0) {
+      return Empty.create();
+    }
+    final CoordinateSystem coordinateSystem =
+        new CoordinateSystem(COLUMNS, Math.max(size / (COLUMNS / Byte.SIZE), 1));
+    return DeltaFrame.keyframe(
+        Patterns.randomFrame(coordinateSystem, 0, SEED, 0.5), Compression.NONE);
+  }
+
+  /*
+   One case, and the state of its current run.
+   */
+  private class Run {
+    final Interaction interaction;
+    final Demand demand;
+    final Object value;
+    final ResolvableType type;
+    final MimeType mimeType;
+    final Encoder<Object> encoder;
+    final Decoder<Object> decoder;
+    final int payloads;
+
+    final AtomicLong received = new AtomicLong();
+    volatile MonoProcessor<Void> allReceived = MonoProcessor.create();
+
+    Run(final Interaction interaction, final Codec codec, final Demand demand,
+        final Object value, final int payloads) {
+      this.interaction = interaction;
+      this.demand = demand;
+      this.value = value;
+      this.type = ResolvableType.forInstance(value);
+      this.payloads = payloads;
+      switch (codec) {
+        case JSON:
+          mimeType = MimeTypeUtils.APPLICATION_JSON;
+          encoder = new Jackson2JsonEncoder(objectMapper);
+          decoder = new Jackson2JsonDecoder(objectMapper);
+          break;
+        case BINARY:
+          mimeType = BinaryCodecs.MIME_TYPE;
+          encoder = new BinaryEncoder();
+          decoder = new BinaryDecoder();
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unknown codec %s", codec));
+      }
+    }
+  }
+}
@@ -1,16 +1,24 @@
 package com.thoughtpropulsion.reactrode.client;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtpropulsion.reactrode.client.LoadGenerator.Stream;
+import com.thoughtpropulsion.reactrode.codec.Transport;
 import com.thoughtpropulsion.reactrode.model.Cell;
 import com.thoughtpropulsion.reactrode.model.Empty;
+import io.rsocket.RSocket;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.rsocket.RSocketStrategies;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
@@ -38,6 +46,32 @@ public class TestClientApplication {
     return createRunner(source, elementType);
   }
 
+  /*
+   Compare Cells per second with allGenerations() (one payload per cell) and with the empties
+   baseline below (the most payloads per second RSocket will carry for us).
+   */
+//  @Bean
+  public ApplicationRunner getFrameRunner() throws Exception {
+    final Publisher<Cell> source = lifeClient.allGenerationsByFrame();
+    final String elementType = "Cell (one payload per generation)";
+    return createRunner(source, elementType);
+  }
+
+  /*
+   The empties runner below, generalized: payload sizes, interactions, demand and codecs, against
+   an in-process server (see RSocketBenchmarks). Doesn't need the gameserver.
+   */
+//  @Bean
+  public ApplicationRunner getBenchmarkRunner(final ObjectMapper objectMapper) {
+    return args -> {
+      try {
+        new RSocketBenchmarks(objectMapper).run(System.out);
+      } finally {
+        applicationContext.close();
+      }
+    };
+  }
+
   @Bean
   public ApplicationRunner getRunner() throws Exception {
     final Publisher<Empty> source = lifeClient.empties();
@@ -45,6 +79,87 @@ public class TestClientApplication {
     return createRunner(source, elementType);
   }
 
+  /*
+   Compare the transports: payloads per second on the empties stream, and ping round trip times,
+   first over WebSocket and then over plain TCP. Each gets a connection of its own.
+   */
+//  @Bean
+  public ApplicationRunner getTransportRunner(final LifeClientConfiguration configuration,
+                                              final RSocketStrategies rSocketStrategies) {
+    final int payloads = 1_000_000;
+    final int pings = 10_000;
+    return args -> {
+      for (final Transport transport : Transport.values()) {
+        final RSocket rSocket = configuration.connect(transport);
+        try {
+          final LifeClient client =
+              new LifeClient(LifeClientConfiguration.requester(rSocket, rSocketStrategies));
+
+          final long starting = System.nanoTime();
+          Flux.from(client.empties()).limitRequest(payloads).blockLast();
+          final long elapsed = System.nanoTime() - starting;
+
+          // one at a time, so each measures a round trip on an otherwise idle connection
+          final long[] roundTrips = Flux.range(0, pings)
+              .concatMap(_i -> {
+                final long sent = System.nanoTime();
+                return client.ping().map(_empty -> System.nanoTime() - sent);
+              })
+              .collectList().block()
+              .stream().mapToLong(Long::longValue).sorted().toArray();
+
+          System.out.println(String.format(
+              "%s: averaged %.0f payloads per second\n"
+                  + "%s: ping round trip median %.1f, 99th percentile %.1f, max %.1f microseconds",
+              transport, payloads * 1.0 / elapsed * 1_000_000_000,
+              transport, microseconds(roundTrips, 0.5), microseconds(roundTrips, 0.99),
+              microseconds(roundTrips, 1.0)));
+        } finally {
+          rSocket.dispose();
+        }
+      }
+      applicationContext.close();
+    };
+  }
+
+  /*
+   Load mode: many concurrent browser-like subscribers (see LoadGenerator), as configured by the
+   reactrode.load properties. Prints a summary and writes the full report as JSON.
+   */
+//  @Bean
+  public ApplicationRunner getLoadRunner(
+      final LifeClientConfiguration configuration,
+      final RSocketStrategies rSocketStrategies,
+      final ObjectMapper objectMapper,
+      @Value("${reactrode.server.transport:WEBSOCKET}") final Transport transport,
+      @Value("${reactrode.load.stream:FRAMES}") final Stream stream,
+      @Value("${reactrode.load.connections:1000}") final int connections,
+      @Value("${reactrode.load.streams-per-connection:1}") final int streamsPerConnection,
+      @Value("${reactrode.load.request-n:8}") final int requestN,
+      @Value("${reactrode.load.consume-millis:0}") final long consumeMillis,
+      @Value("${reactrode.load.expected-interval-millis:0}") final long expectedIntervalMillis,
+      @Value("${reactrode.load.duration-seconds:60}") final long durationSeconds,
+      @Value("${reactrode.load.report:load-report.json}") final String reportFile) {
+    return args -> {
+      try {
+        final LoadReport report = new LoadGenerator(configuration, rSocketStrategies, transport,
+            stream, connections, streamsPerConnection, requestN,
+            Duration.ofMillis(consumeMillis), Duration.ofMillis(expectedIntervalMillis),
+            Duration.ofSeconds(durationSeconds))
+            .run();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), report);
+        System.out.println(String.format("%s\nwrote %s", report, reportFile));
+      } finally {
+        applicationContext.close();
+      }
+    };
+  }
+
+  private static double microseconds(final long[] sortedNanos, final double percentile) {
+    final int i = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+    return sortedNanos[Math.max(i, 0)] / 1_000.0;
+  }
+
   private <E> ApplicationRunner createRunner(final Publisher<E> source, final String elementType) {
     return args -> {
       final LongAdder n = new LongAdder();